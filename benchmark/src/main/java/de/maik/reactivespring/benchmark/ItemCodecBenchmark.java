@@ -0,0 +1,117 @@
+package de.maik.reactivespring.benchmark;
+
+import de.maik.reactivespring.server.config.CodecConfig;
+import de.maik.reactivespring.server.item.document.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.DecoderHttpMessageReader;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Time to encode and decode a list of items in each of the media types the Items API offers, using the codecs
+ * configured by {@link CodecConfig}. The payload size per media type is printed during setup.
+ * Run by {@link BenchmarkRunner}, which adds allocation rates per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemCodecBenchmark {
+
+    private static final ResolvableType ITEM_LIST_TYPE = ResolvableType.forClassWithGenerics(List.class, Item.class);
+
+    @Param({"application/json", "application/x-jackson-smile"})
+    public String mediaType;
+
+    @Param({"10000"})
+    public int numberOfItems;
+
+    private final DataBufferFactory dataBufferFactory = new DefaultDataBufferFactory();
+    private MediaType itemsMediaType;
+    private Encoder<List<Item>> encoder;
+    private Decoder<List<Item>> decoder;
+    private List<Item> items;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        itemsMediaType = MediaType.valueOf(mediaType);
+        ServerCodecConfigurer codecConfigurer = ServerCodecConfigurer.create();
+        CodecConfig codecConfig = new CodecConfig();
+        codecConfig.ndjsonCodecCustomizer(Jackson2ObjectMapperBuilder.json().build()).customize(codecConfigurer);
+        codecConfig.smileCodecCustomizer(Jackson2ObjectMapperBuilder.json()).customize(codecConfigurer);
+        encoder = codecConfigurer.getWriters().stream()
+                .filter(writer -> writer.canWrite(ITEM_LIST_TYPE, itemsMediaType))
+                .map(writer -> ((EncoderHttpMessageWriter<List<Item>>) writer).getEncoder())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No encoder for " + mediaType));
+        decoder = codecConfigurer.getReaders().stream()
+                .filter(reader -> reader.canRead(ITEM_LIST_TYPE, itemsMediaType))
+                .map(reader -> ((DecoderHttpMessageReader<List<Item>>) reader).getDecoder())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No decoder for " + mediaType));
+        items = IntStream.range(0, numberOfItems)
+                .mapToObj(i -> new Item("5ec3a2a4d4b8c26b1a" + String.format("%06x", i), "Benchmark item " + i, 1.99 + i))
+                .collect(Collectors.toList());
+        DataBuffer encodedItems = encode(items);
+        payload = new byte[encodedItems.readableByteCount()];
+        encodedItems.read(payload);
+        DataBufferUtils.release(encodedItems);
+        System.out.println(mediaType + " payload of " + numberOfItems + " items: " + payload.length + " bytes");
+        if (!decode().equals(items)) {
+            throw new IllegalStateException("Items don't survive a round trip as " + mediaType);
+        }
+    }
+
+    /**
+     * @return the payload size, so the encoded items can't be optimized away
+     */
+    @Benchmark
+    public int encode() {
+        DataBuffer encodedItems = encode(items);
+        int size = encodedItems.readableByteCount();
+        DataBufferUtils.release(encodedItems);
+        return size;
+    }
+
+    @Benchmark
+    public List<Item> decode() {
+        return decoder.decodeToMono(Mono.just(dataBufferFactory.wrap(payload)), ITEM_LIST_TYPE, itemsMediaType,
+                Collections.emptyMap()).block();
+    }
+
+    private DataBuffer encode(List<Item> itemsToEncode) {
+        return encoder.encodeValue(itemsToEncode, dataBufferFactory, ITEM_LIST_TYPE, itemsMediaType,
+                Collections.emptyMap());
+    }
+}
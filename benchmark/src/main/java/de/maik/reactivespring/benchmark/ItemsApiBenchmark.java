@@ -0,0 +1,135 @@
+package de.maik.reactivespring.benchmark;
+
+import de.maik.reactivespring.server.item.document.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cost per request of the annotated (v1) and the functional (v2) Items API stack: routing, argument resolution,
+ * JSON decoding of request bodies and encoding of responses. Requests are passed to the complete WebFlux handler
+ * chain in-process, so neither the network nor MongoDB (replaced by a stub) add to the numbers.
+ * <p>
+ * Both stacks share the single item cache and ETag computation, so differences come down to the stacks themselves.
+ * Run by {@link BenchmarkRunner}, which adds allocation rates per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemsApiBenchmark {
+
+    private static final String ITEM_ID = "ITMID0";
+    private static final String ITEM_JSON = "{\"id\":null,\"description\":\"Propain Tyee 2020 29\",\"price\":3499.0}";
+
+    @Param({"v1", "v2"})
+    public String apiVersion;
+
+    /**
+     * Size of the collection returned by the get all route
+     */
+    @Param({"100"})
+    public int numberOfItems;
+
+    /**
+     * Serve v2 reads from the server's pre-serialized response cache, see items.response-cache.enabled
+     */
+    @Param({"false", "true"})
+    public boolean responseCache;
+
+    /**
+     * Pass v2 requests through the per client rate limits, see items.rate-limit.enabled. The limits are set
+     * high enough to admit every request, so this measures what admission control adds to each of them.
+     */
+    @Param({"false", "true"})
+    public boolean rateLimit;
+
+    private HttpHandler httpHandler;
+    private String itemsUri;
+    private String itemUri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Item> items = IntStream.range(0, numberOfItems)
+                .mapToObj(i -> new Item("ITMID" + i, "Benchmark item " + i, 1.99 + i))
+                .collect(Collectors.toList());
+        System.setProperty("items.response-cache.enabled", String.valueOf(responseCache));
+        System.setProperty("items.rate-limit.enabled", String.valueOf(rateLimit));
+        System.setProperty("items.rate-limit.reads.permits-per-second", "1000000000");
+        System.setProperty("items.rate-limit.writes.permits-per-second", "1000000000");
+        httpHandler = ItemsApiContext.createHttpHandler(items);
+        itemsUri = "/" + apiVersion + "/items";
+        itemUri = itemsUri + "/" + ITEM_ID;
+        // Fail fast instead of benchmarking error responses
+        expect(HttpStatus.OK, getOne());
+        expect(HttpStatus.OK, getAll());
+        expect(HttpStatus.CREATED, createOne());
+        expect(HttpStatus.OK, updateOne());
+    }
+
+    @Benchmark
+    public MockServerHttpResponse getOne() {
+        return exchange(MockServerHttpRequest.get(itemUri)
+                .accept(MediaType.APPLICATION_JSON)
+                .build());
+    }
+
+    @Benchmark
+    public MockServerHttpResponse getAll() {
+        return exchange(MockServerHttpRequest.get(itemsUri)
+                .accept(MediaType.APPLICATION_JSON)
+                .build());
+    }
+
+    @Benchmark
+    public MockServerHttpResponse createOne() {
+        return exchange(MockServerHttpRequest.post(itemsUri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(ITEM_JSON));
+    }
+
+    @Benchmark
+    public MockServerHttpResponse updateOne() {
+        return exchange(MockServerHttpRequest.method(HttpMethod.PUT, itemUri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(ITEM_JSON));
+    }
+
+    private MockServerHttpResponse exchange(MockServerHttpRequest request) {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        httpHandler.handle(request, response).block();
+        // The mock response only encodes its body once subscribed to
+        response.getBody().blockLast();
+        return response;
+    }
+
+    private static void expect(HttpStatus expectedStatus, MockServerHttpResponse response) {
+        if (response.getStatusCode() != expectedStatus) {
+            throw new IllegalStateException("Expected " + expectedStatus + ", got " + response.getStatusCode());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package de.maik.reactivespring.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.maik.reactivespring.server.config.CodecConfig;
+import de.maik.reactivespring.server.item.boundary.v1.ItemController;
+import de.maik.reactivespring.server.item.boundary.v2.ItemsHandler;
+import de.maik.reactivespring.server.item.boundary.v2.ItemsRateLimits;
+import de.maik.reactivespring.server.item.boundary.v2.ItemsRouter;
+import de.maik.reactivespring.server.item.control.ItemCache;
+import de.maik.reactivespring.server.item.control.ItemChangeFeed;
+import de.maik.reactivespring.server.item.control.ItemPager;
+import de.maik.reactivespring.server.item.control.ItemPriceRangePager;
+import de.maik.reactivespring.server.item.control.ItemPriceStatistics;
+import de.maik.reactivespring.server.item.control.ItemResponseCache;
+import de.maik.reactivespring.server.item.control.ItemUpdater;
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Both Items API stacks with their production controller, router, handler and codecs,
+ * but without Spring Boot, MongoDB and a network server
+ */
+@Configuration
+@EnableWebFlux
+@Import({CodecConfig.class, ItemController.class, ItemsRouter.class, ItemsHandler.class,
+        ItemCache.class, ItemPager.class, ItemUpdater.class, ItemResponseCache.class, ItemPriceRangePager.class,
+        ItemsRateLimits.class})
+class ItemsApiContext implements WebFluxConfigurer {
+
+    private static List<Item> items;
+
+    private final CodecConfig codecConfig = new CodecConfig();
+
+    /**
+     * @return the same handler chain a server would pass requests to
+     */
+    static HttpHandler createHttpHandler(List<Item> items) {
+        ItemsApiContext.items = items;
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ItemsApiContext.class);
+        return WebHttpHandlerBuilder.applicationContext(context).build();
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        codecConfig.ndjsonCodecCustomizer(objectMapper()).customize(configurer);
+        codecConfig.smileCodecCustomizer(jacksonObjectMapperBuilder()).customize(configurer);
+    }
+
+    /**
+     * Boot's conversions, e.g. for the "60s" style durations the production beans are configured with
+     */
+    @Bean
+    static ConversionService conversionService() {
+        return ApplicationConversionService.getSharedInstance();
+    }
+
+    @Bean
+    Jackson2ObjectMapperBuilder jacksonObjectMapperBuilder() {
+        return Jackson2ObjectMapperBuilder.json();
+    }
+
+    @Bean
+    ObjectMapper objectMapper() {
+        return jacksonObjectMapperBuilder().build();
+    }
+
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    ItemRepository itemRepository() {
+        return StubItemRepository.of(items);
+    }
+
+    @Bean
+    ItemChangeFeed itemChangeFeed() {
+        // The change stream is not benchmarked and is only subscribed to by clients of /v2/items/changes
+        return new ItemChangeFeed(stubMongoOperations(), 1);
+    }
+
+    @Bean
+    ItemPriceStatistics itemPriceStatistics() {
+        // Price statistics are computed by MongoDB and not benchmarked
+        return new ItemPriceStatistics(stubMongoOperations());
+    }
+
+    private static ReactiveMongoOperations stubMongoOperations() {
+        return (ReactiveMongoOperations) Proxy.newProxyInstance(
+                ReactiveMongoOperations.class.getClassLoader(), new Class<?>[]{ReactiveMongoOperations.class},
+                (proxy, method, args) -> method.getName().equals("changeStream") ? Flux.never() : "item");
+    }
+}
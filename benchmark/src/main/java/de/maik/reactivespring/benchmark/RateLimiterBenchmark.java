@@ -0,0 +1,54 @@
+package de.maik.reactivespring.benchmark;
+
+import de.maik.reactivespring.server.item.control.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Time per admission decision of the server's per client rate limiter, with several threads admitting
+ * requests at once. A single client has all threads compete for the same bucket, many clients spread them
+ * across buckets like production traffic would.
+ * Run by {@link BenchmarkRunner}, which adds allocation rates per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    public int numberOfClients;
+
+    private RateLimiter rateLimiter;
+    private String[] clientKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Never rejects, so every call takes the compare-and-set path
+        rateLimiter = new RateLimiter(1e9, 1_000_000, 100_000);
+        clientKeys = IntStream.range(0, numberOfClients).mapToObj(i -> "client-" + i).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return rateLimiter.tryAcquire(clientKeys[ThreadLocalRandom.current().nextInt(clientKeys.length)]);
+    }
+}
@@ -0,0 +1,59 @@
+package de.maik.reactivespring.benchmark;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory stand-in for the MongoDB backed {@link ItemRepository}, answering the calls made by the
+ * benchmarked routes from a fixed set of items. Writes are acknowledged, but not applied, so every
+ * invocation of a benchmark sees the same data.
+ */
+final class StubItemRepository {
+
+    private StubItemRepository() {
+    }
+
+    private static final String GENERATED_ID = "GENERATEDID";
+
+    static ItemRepository of(List<Item> items) {
+        Map<String, Item> itemsById = items.stream().collect(Collectors.toMap(Item::getId, Function.identity()));
+        return (ItemRepository) Proxy.newProxyInstance(ItemRepository.class.getClassLoader(),
+                new Class<?>[]{ItemRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findAll":
+                            return Flux.fromIterable(items);
+                        case "findById":
+                            return Mono.justOrEmpty(itemsById.get((String) args[0]));
+                        case "existsById":
+                            return Mono.just(itemsById.containsKey((String) args[0]));
+                        case "save":
+                            return Mono.just(withId((Item) args[0]));
+                        case "deleteById":
+                            return Mono.empty();
+                        case "updateDescriptionAndPrice":
+                            return Mono.justOrEmpty(itemsById.get((String) args[0]))
+                                    .map(item -> new Item(item.getId(), (String) args[1], (double) args[2]));
+                        case "toString":
+                            return StubItemRepository.class.getSimpleName();
+                        default:
+                            throw new UnsupportedOperationException(method.getName() + " is not stubbed");
+                    }
+                });
+    }
+
+    /**
+     * Just like MongoDB, assign an id to new items
+     */
+    private static Item withId(Item item) {
+        return item.getId() != null ? item : new Item(GENERATED_ID, item.getDescription(), item.getPrice());
+    }
+}
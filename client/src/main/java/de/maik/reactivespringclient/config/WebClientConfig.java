@@ -0,0 +1,71 @@
+package de.maik.reactivespringclient.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebClient for the server's Items API with a dedicated, tunable connection pool (items.api.client.* in application.yml).
+ * <p>
+ * The pool publishes its total, active, idle and pending connection counts as reactor.netty.connection.provider.*
+ * gauges, exposed at /actuator/prometheus. Growing pending counts mean requests wait for a free connection.
+ */
+@Configuration
+public class WebClientConfig {
+
+    private static final String ITEMS_API_POOL_NAME = "items-api";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider itemsApiConnectionProvider(
+            @Value("${items.api.client.max-connections:500}") int maxConnections,
+            @Value("${items.api.client.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${items.api.client.pending-acquire-timeout:45s}") Duration pendingAcquireTimeout,
+            @Value("${items.api.client.max-idle-time:30s}") Duration maxIdleTime) {
+        return ConnectionProvider.builder(ITEMS_API_POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public HttpClient itemsApiHttpClient(ConnectionProvider itemsApiConnectionProvider,
+                                         @Value("${items.api.client.connect-timeout:5s}") Duration connectTimeout,
+                                         @Value("${items.api.client.read-timeout:30s}") Duration readTimeout,
+                                         @Value("${items.api.client.write-timeout:10s}") Duration writeTimeout,
+                                         @Value("${items.api.client.h2c:false}") boolean h2c) {
+        HttpClient httpClient = HttpClient.create(itemsApiConnectionProvider)
+                .tcpConfiguration(tcpClient -> tcpClient
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                        .doOnConnected(connection -> connection
+                                .addHandlerLast(new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                                .addHandlerLast(new WriteTimeoutHandler(writeTimeout.toMillis(), TimeUnit.MILLISECONDS))));
+        // Falls back to HTTP/1.1 if the server doesn't accept the upgrade
+        return h2c ? httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11) : httpClient;
+    }
+
+    /**
+     * Based on Boot's builder, so the application's codecs are used
+     */
+    @Bean
+    public WebClient itemsApiWebClient(WebClient.Builder webClientBuilder, HttpClient itemsApiHttpClient,
+                                       @Value("${items.api.base.url}") String itemsApiBaseUrl) {
+        return webClientBuilder
+                .baseUrl(itemsApiBaseUrl)
+                .clientConnector(new ReactorClientHttpConnector(itemsApiHttpClient))
+                .build();
+    }
+}
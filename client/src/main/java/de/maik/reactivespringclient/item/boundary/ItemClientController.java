@@ -1,37 +1,91 @@
 package de.maik.reactivespringclient.item.boundary;
 
+import de.maik.reactivespringclient.config.WebClientConfig;
+import de.maik.reactivespringclient.item.control.CatalogCache;
+import de.maik.reactivespringclient.item.control.ResilientReads;
+import de.maik.reactivespringclient.item.control.SingleFlight;
 import de.maik.reactivespringclient.item.entity.Item;
+import de.maik.reactivespringclient.item.entity.ItemBatch;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestController
 @Slf4j
 public class ItemClientController {
 
-    @Value("${items.api.base.url}")
-    String itemsApiBaseUrl;
     private static final String CLIENT_ITEMS_RESOURCE_ENDPOINT_URL = "/items";
     private static final String SERVER_ITEMS_RESOURCE_V2_ENDPOINT_URL = "/v2/items";
+    private static final String CATALOG_READ = "catalog";
+    private static final String LOOKUP_READ = "lookup";
+    private static final String MULTI_GET_READ = "multi-get";
+    private static final DataBufferFactory DATA_BUFFER_FACTORY = new DefaultDataBufferFactory();
     private WebClient webClient;
+    private ResilientReads resilientReads;
+    private SingleFlight<String, Item> itemLookups = new SingleFlight<>();
+    private CatalogCache catalogCache;
+    private int multiGetChunkSize;
+    private int multiGetConcurrency;
+    private MediaType itemsMediaType;
 
-    @PostConstruct
-    private void initialize() {
-        // Create WebClient after class init to allow URL from value
-        webClient = WebClient.create(itemsApiBaseUrl);
+    /**
+     * @param webClient     pointing to the server's base URL, see {@link WebClientConfig}
+     * @param meterRegistry to report the number of server calls saved by coalescing item lookups
+     * @param resilientReads hedging and circuit breaking for reads
+     * @param catalogTtl    age after which the cached catalog is refreshed
+     * @param catalogMaxItems max. size of a catalog that is cached
+     * @param multiGetChunkSize   max. number of ids looked up per server call
+     * @param multiGetConcurrency max. number of concurrent server calls per multi-get
+     * @param itemsMediaType      requested for items read from the server, e.g. application/x-jackson-smile
+     */
+    @Autowired
+    public ItemClientController(WebClient webClient, MeterRegistry meterRegistry, ResilientReads resilientReads,
+                                @Value("${items.catalog-cache.ttl:10s}") Duration catalogTtl,
+                                @Value("${items.catalog-cache.max-items:100000}") int catalogMaxItems,
+                                @Value("${items.multi-get.chunk-size:100}") int multiGetChunkSize,
+                                @Value("${items.multi-get.concurrency:4}") int multiGetConcurrency,
+                                @Value("${items.api.client.media-type:application/json}") String itemsMediaType) {
+        this.webClient = webClient;
+        this.resilientReads = resilientReads;
+        this.multiGetChunkSize = multiGetChunkSize;
+        this.multiGetConcurrency = multiGetConcurrency;
+        this.itemsMediaType = MediaType.valueOf(itemsMediaType);
+        this.catalogCache = new CatalogCache(() -> resilientReads.execute(CATALOG_READ,
+                webClient.get().uri(SERVER_ITEMS_RESOURCE_V2_ENDPOINT_URL)
+                        .accept(this.itemsMediaType)
+                        .retrieve()
+                        .bodyToFlux(Item.class)
+                        .log("[Cached] GET all items from server: ")), catalogTtl, catalogMaxItems);
+        FunctionCounter.builder("items.client.lookups.coalesced", itemLookups, SingleFlight::savedCalls)
+                .description("Item lookups served by joining an identical in-flight server call")
+                .register(meterRegistry);
     }
 
     /**
@@ -40,33 +94,120 @@ public class ItemClientController {
      *     <li>useRetrieve = true uses retrieve => responseBody is returned directly</li>
      *     <li>useRetrieve = false uses exchange => serverResponse can be handled manually</li>
      * </ul>
+     * cached = true serves the items from a snapshot that may be up to the configured TTL old,
+     * or older while it's being refreshed, see {@link CatalogCache}. Server calls are guarded by {@link ResilientReads}.
      *
      * @return Items using retrieve
      */
     @GetMapping(CLIENT_ITEMS_RESOURCE_ENDPOINT_URL)
-    public Flux<Item> getAll(@RequestParam(defaultValue = "true") boolean useRetrieve) {
+    public Flux<Item> getAll(@RequestParam(defaultValue = "true") boolean useRetrieve,
+                             @RequestParam(defaultValue = "false") boolean cached) {
         Flux<Item> itemsFlux;
-        if (useRetrieve) {
+        if (cached) {
+            itemsFlux = catalogCache.getAll();
+        } else if (useRetrieve) {
             itemsFlux = webClient.get().uri(SERVER_ITEMS_RESOURCE_V2_ENDPOINT_URL)
+                    .accept(itemsMediaType)
                     .retrieve()
                     .bodyToFlux(Item.class)
                     .log("[Retrieve] GET all items from server: ");
         } else {
             itemsFlux = webClient.get().uri(SERVER_ITEMS_RESOURCE_V2_ENDPOINT_URL)
+                    .accept(itemsMediaType)
                     .exchange()
                     .flatMapMany(serverResponse -> serverResponse.bodyToFlux(Item.class))
                     .log("[Exchange] GET all items from server: ");
         }
 
-        return itemsFlux;
+        return cached ? itemsFlux : resilientReads.execute(CATALOG_READ, itemsFlux);
+    }
+
+    /**
+     * Variant of {@link #getAll(boolean, boolean)} proxying the server's response as is: The response body's buffers
+     * are handed from the server connection to the caller's without being decoded to items and encoded again.
+     * Demand and cancellation of the caller are propagated to the server connection.
+     * <p>
+     * The caller's Accept header is forwarded, so NDJSON is streamed through as well.
+     * Status and content type are the server's.
+     * <p>
+     * The read passes the circuit breaker, but isn't hedged, see {@link ResilientReads#acquire()}.
+     * It only counts as successful once the body was streamed completely, error responses count before being passed on.
+     *
+     * @param accept the caller's accepted media types, JSON if none
+     * @return the server's response body
+     */
+    @GetMapping(value = CLIENT_ITEMS_RESOURCE_ENDPOINT_URL, params = "passThrough=true")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllPassThrough(
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.APPLICATION_JSON_VALUE) String accept) {
+        return resilientReads.acquire()
+                .flatMap(permit -> webClient.get().uri(SERVER_ITEMS_RESOURCE_V2_ENDPOINT_URL)
+                        .header(HttpHeaders.ACCEPT, accept)
+                        .exchange()
+                        // Reads and releases the body of error responses
+                        .flatMap(serverResponse -> serverResponse.statusCode().is2xxSuccessful()
+                                ? Mono.just(serverResponse)
+                                : serverResponse.createException().flatMap(Mono::error))
+                        .doOnError(permit::failed)
+                        .doOnCancel(permit::cancelled)
+                        .map(serverResponse -> ResponseEntity.status(serverResponse.rawStatusCode())
+                                .contentType(serverResponse.headers().contentType().orElse(MediaType.APPLICATION_JSON))
+                                .body(serverResponse.bodyToFlux(DataBuffer.class)
+                                        .doOnComplete(permit::succeeded)
+                                        .doOnError(permit::failed)
+                                        .doOnCancel(permit::cancelled))))
+                .onErrorResume(WebClientResponseException.class, e -> Mono.just(ResponseEntity
+                        .status(e.getRawStatusCode())
+                        .contentType(Optional.ofNullable(e.getHeaders().getContentType()).orElse(MediaType.APPLICATION_JSON))
+                        .body(Flux.just(DATA_BUFFER_FACTORY.wrap(e.getResponseBodyAsByteArray())))))
+                .log("[Pass-through] GET all items from server: ");
     }
 
+    /**
+     * Concurrent requests for the same item share a single server call, which is hedged and circuit broken
+     * like all reads, see {@link ResilientReads}
+     */
     @GetMapping(CLIENT_ITEMS_RESOURCE_ENDPOINT_URL + "/{itemId}")
     public Mono<Item> retrieveById(@PathVariable String itemId) {
-        return webClient.get().uri(SERVER_ITEMS_RESOURCE_V2_ENDPOINT_URL.concat("/{itemId}"), itemId)
+        return itemLookups.execute(itemId, id -> resilientReads.execute(LOOKUP_READ, webClient.get()
+                .uri(SERVER_ITEMS_RESOURCE_V2_ENDPOINT_URL.concat("/{itemId}"), id)
+                .accept(itemsMediaType)
                 .retrieve()
                 .bodyToMono(Item.class)
-                .log("GET item from server: ");
+                .log("GET item from server: ")));
+    }
+
+    /**
+     * Looks up many items with a few server calls rather than one per item:
+     * The ids are cut into chunks, each fetched with a single multi-get, a few chunks at a time.
+     *
+     * @param ids comma separated and/or repeated item ids
+     * @return the found items in request order and the ids of those that weren't found
+     */
+    @GetMapping(value = CLIENT_ITEMS_RESOURCE_ENDPOINT_URL, params = "ids")
+    public Mono<ItemBatch> retrieveByIds(@RequestParam List<String> ids) {
+        List<String> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        return Flux.fromIterable(distinctIds)
+                .buffer(multiGetChunkSize)
+                .flatMap(chunk -> resilientReads.execute(MULTI_GET_READ, webClient.get()
+                        .uri(uriBuilder -> uriBuilder.path(SERVER_ITEMS_RESOURCE_V2_ENDPOINT_URL)
+                                .queryParam("ids", String.join(",", chunk))
+                                .build())
+                        .accept(itemsMediaType)
+                        .retrieve()
+                        .bodyToFlux(Item.class)), multiGetConcurrency)
+                .collectMap(Item::getId)
+                // Chunks complete in any order
+                .map(itemsById -> toItemBatch(distinctIds, itemsById))
+                .log("GET items by ids from server: ");
+    }
+
+    private static ItemBatch toItemBatch(List<String> ids, Map<String, Item> itemsById) {
+        Map<Boolean, List<String>> idsByFound = ids.stream()
+                .collect(Collectors.partitioningBy(itemsById::containsKey));
+        List<Item> items = idsByFound.get(true).stream()
+                .map(itemsById::get)
+                .collect(Collectors.toList());
+        return new ItemBatch(items, idsByFound.get(false));
     }
 
     @PostMapping(CLIENT_ITEMS_RESOURCE_ENDPOINT_URL)
@@ -0,0 +1,122 @@
+package de.maik.reactivespringclient.item.control;
+
+import de.maik.reactivespringclient.item.entity.Item;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * In-memory snapshot of the whole item catalog, served stale-while-revalidate:
+ * <ul>
+ *     <li>Within the TTL, the snapshot is served as is</li>
+ *     <li>Once it's expired, it's still served right away while a single background refresh replaces it</li>
+ *     <li>Only callers finding no snapshot at all wait for the server, and share a single call while doing so</li>
+ * </ul>
+ * A failed refresh keeps the stale snapshot, the next caller tries again.
+ * <p>
+ * Loads stop reading once the catalog turns out to be larger than the configured maximum, which bounds
+ * the memory used by the cache. Such a catalog isn't kept: Until the next load after the TTL, callers get it
+ * streamed straight from the server instead.
+ */
+@Slf4j
+public class CatalogCache {
+
+    private static final String CATALOG_KEY = "catalog";
+
+    private final Supplier<Flux<Item>> catalogLoader;
+    private final Duration timeToLive;
+    private final int maxItems;
+    private final Clock clock;
+    private final SingleFlight<String, Snapshot> loads = new SingleFlight<>();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * @param catalogLoader fetches all items from the server
+     * @param timeToLive    age after which a snapshot is refreshed
+     * @param maxItems      max. size of a catalog that is kept
+     */
+    public CatalogCache(Supplier<Flux<Item>> catalogLoader, Duration timeToLive, int maxItems) {
+        this(catalogLoader, timeToLive, maxItems, Clock.systemUTC());
+    }
+
+    CatalogCache(Supplier<Flux<Item>> catalogLoader, Duration timeToLive, int maxItems, Clock clock) {
+        this.catalogLoader = catalogLoader;
+        this.timeToLive = timeToLive;
+        this.maxItems = maxItems;
+        this.clock = clock;
+    }
+
+    public Flux<Item> getAll() {
+        return Mono.defer(() -> {
+            Snapshot currentSnapshot = snapshot.get();
+            if (currentSnapshot == null) {
+                return load();
+            }
+            if (currentSnapshot.isExpired(clock.instant(), timeToLive)) {
+                refreshInBackground();
+            }
+            return Mono.just(currentSnapshot);
+        }).flatMapMany(currentSnapshot -> currentSnapshot.isPassThrough()
+                ? catalogLoader.get()
+                : currentSnapshot.items());
+    }
+
+    private void refreshInBackground() {
+        if (refreshing.compareAndSet(false, true)) {
+            load().doFinally(signalType -> refreshing.set(false))
+                    .subscribe(refreshedSnapshot -> log.debug("Refreshed catalog snapshot"),
+                            e -> log.warn("Catalog refresh failed, keeping the stale snapshot: " + e));
+        }
+    }
+
+    private Mono<Snapshot> load() {
+        return loads.execute(CATALOG_KEY, key -> catalogLoader.get()
+                // One more than fits tells an oversized catalog apart without reading all of it
+                .take(maxItems + 1L)
+                .collectList()
+                .map(items -> {
+                    if (items.size() <= maxItems) {
+                        return new Snapshot(items.toArray(new Item[0]), clock.instant());
+                    }
+                    log.warn("Catalog exceeds the cache's maximum of " + maxItems + " items, not caching it");
+                    return new Snapshot(null, clock.instant());
+                })
+                .doOnNext(snapshot::set));
+    }
+
+    /**
+     * Immutable catalog at a point in time, or the note that it was too large to keep.
+     * Neither the array nor the items in it are handed out, callers get copies, so the snapshot can't be modified.
+     */
+    private static final class Snapshot {
+        private final Item[] items;
+        private final Instant loadedAt;
+
+        Snapshot(Item[] items, Instant loadedAt) {
+            this.items = items;
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isExpired(Instant now, Duration timeToLive) {
+            return loadedAt.plus(timeToLive).isBefore(now);
+        }
+
+        boolean isPassThrough() {
+            return items == null;
+        }
+
+        Flux<Item> items() {
+            return Flux.fromArray(items)
+                    .map(item -> new Item(item.getId(), item.getDescription(), item.getPrice()));
+        }
+    }
+
+}
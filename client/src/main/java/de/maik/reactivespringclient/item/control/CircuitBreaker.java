@@ -0,0 +1,216 @@
+package de.maik.reactivespringclient.item.control;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Fails calls fast while the server is failing:
+ * <ul>
+ *     <li>Closed: Calls are made, their outcomes recorded in a window of the most recent calls</li>
+ *     <li>Open: Once the failure rate within the window reaches the threshold, calls fail with a
+ *     {@link CircuitBreakerOpenException} right away</li>
+ *     <li>Half open: After the open duration, a single trial call is made. Its success closes the circuit,
+ *     its failure opens it again. Calls admitted before the circuit opened don't count</li>
+ * </ul>
+ * Only errors matching the failure predicate count as failures, e.g. a 404 tells nothing about the server's health.
+ * Cancelled calls aren't recorded at all.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private enum Permission {
+        DENIED, GRANTED, TRIAL
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final Predicate<Throwable> isFailure;
+    private final Clock clock;
+    // Ring buffer of the most recent outcomes, true for failures
+    private final boolean[] outcomes;
+    private int nextOutcome;
+    private int recordedCalls;
+    private int failedCalls;
+    private State state = State.CLOSED;
+    private Instant openedAt;
+    private boolean trialCallInFlight;
+
+    /**
+     * @param name                 used in logs and error messages
+     * @param failureRateThreshold failure rate opening the circuit, e.g. 0.5
+     * @param windowSize           number of most recent calls the failure rate is computed over
+     * @param minimumCalls         number of calls to record before the failure rate is considered
+     * @param openDuration         time to fail fast before a trial call is made
+     * @param isFailure            tells errors counting as failure
+     */
+    public CircuitBreaker(String name, double failureRateThreshold, int windowSize, int minimumCalls,
+                          Duration openDuration, Predicate<Throwable> isFailure) {
+        this(name, failureRateThreshold, windowSize, minimumCalls, openDuration, isFailure, Clock.systemUTC());
+    }
+
+    CircuitBreaker(String name, double failureRateThreshold, int windowSize, int minimumCalls,
+                   Duration openDuration, Predicate<Throwable> isFailure, Clock clock) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.openDuration = openDuration;
+        this.isFailure = isFailure;
+        this.clock = clock;
+    }
+
+    public <T> Mono<T> execute(Mono<T> call) {
+        return acquire().flatMap(permit -> call.doOnSuccess(result -> permit.succeeded())
+                .doOnError(permit::failed)
+                .doOnCancel(permit::cancelled));
+    }
+
+    /**
+     * A stream counts as successful once it emitted its first item or completed
+     */
+    public <T> Flux<T> execute(Flux<T> call) {
+        return acquire().flatMapMany(permit -> call.doOnNext(item -> permit.succeeded())
+                .doOnComplete(permit::succeeded)
+                .doOnError(permit::failed)
+                .doOnCancel(permit::cancelled));
+    }
+
+    /**
+     * For calls whose outcome is only known after their result was handed on, e.g. a response whose body is read later:
+     * The caller reports the outcome to the permit itself.
+     *
+     * @return the admitted call's permit, or a {@link CircuitBreakerOpenException}
+     */
+    public Mono<Permit> acquire() {
+        return Mono.defer(() -> {
+            Permission permission = tryAcquirePermission();
+            if (permission == Permission.DENIED) {
+                return Mono.error(new CircuitBreakerOpenException("Circuit breaker " + name + " is open"));
+            }
+            return Mono.just(new Permit(permission == Permission.TRIAL));
+        });
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private synchronized Permission tryAcquirePermission() {
+        switch (state) {
+            case OPEN:
+                if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                    return Permission.DENIED;
+                }
+                state = State.HALF_OPEN;
+                trialCallInFlight = true;
+                return Permission.TRIAL;
+            case HALF_OPEN:
+                if (trialCallInFlight) {
+                    return Permission.DENIED;
+                }
+                trialCallInFlight = true;
+                return Permission.TRIAL;
+            default:
+                return Permission.GRANTED;
+        }
+    }
+
+    private synchronized void recordTrial(boolean failed) {
+        trialCallInFlight = false;
+        if (failed) {
+            open();
+        } else {
+            log.info("Circuit breaker " + name + " closed");
+            state = State.CLOSED;
+            clearOutcomes();
+        }
+    }
+
+    private synchronized void record(boolean failed) {
+        if (state != State.CLOSED) {
+            // Made before the circuit opened
+            return;
+        }
+        if (recordedCalls == outcomes.length && outcomes[nextOutcome]) {
+            failedCalls--;
+        }
+        outcomes[nextOutcome] = failed;
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+        recordedCalls = Math.min(recordedCalls + 1, outcomes.length);
+        if (failed) {
+            failedCalls++;
+        }
+        if (recordedCalls >= minimumCalls && (double) failedCalls / recordedCalls >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        log.warn("Circuit breaker " + name + " opened");
+        state = State.OPEN;
+        openedAt = clock.instant();
+        clearOutcomes();
+    }
+
+    private void clearOutcomes() {
+        nextOutcome = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+    }
+
+    /**
+     * An admitted call. Only its first reported outcome counts.
+     * Whether it's the trial call of a half open circuit is decided at admission, so no other call can take its place.
+     */
+    public final class Permit {
+
+        private final boolean trialCall;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private Permit(boolean trialCall) {
+            this.trialCall = trialCall;
+        }
+
+        public void succeeded() {
+            onOutcome(false);
+        }
+
+        public void failed(Throwable e) {
+            onOutcome(isFailure.test(e));
+        }
+
+        /**
+         * Cancelled calls aren't recorded, but free the trial call's slot
+         */
+        public void cancelled() {
+            if (recorded.compareAndSet(false, true) && trialCall) {
+                synchronized (CircuitBreaker.this) {
+                    trialCallInFlight = false;
+                }
+            }
+        }
+
+        private void onOutcome(boolean failed) {
+            if (recorded.compareAndSet(false, true)) {
+                if (trialCall) {
+                    recordTrial(failed);
+                } else {
+                    record(failed);
+                }
+            }
+        }
+    }
+}
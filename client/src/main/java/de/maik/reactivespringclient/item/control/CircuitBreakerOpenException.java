@@ -0,0 +1,15 @@
+package de.maik.reactivespringclient.item.control;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Signals a call that wasn't made, as the server failed too often recently
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,108 @@
+package de.maik.reactivespringclient.item.control;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hedges idempotent calls against tail latency: If a call hasn't answered within the given percentile of
+ * recent response times, a second, identical call is started. Whichever answers first wins, the other one is cancelled.
+ * <p>
+ * Calls are re-issued by subscribing to them again, so they must be cold (like WebClient calls are).
+ * Until enough response times have been recorded, the initial delay is used. Hedging at the 95th percentile
+ * sends about 5% more requests, but keeps a single slow server or GC pause from holding up the caller.
+ * <p>
+ * Only the first call of each pair is timed, the hedge would just add the fast answers. A first call that is
+ * cancelled because its hedge won, or that fails, is recorded with the time it ran, as the least it would have taken.
+ * Otherwise the slow calls would go missing from the response times, the delay would keep dropping
+ * and more and more calls would be hedged, exactly while the server is slow.
+ */
+public class Hedging {
+
+    private static final int MIN_RECORDED_CALLS = 20;
+
+    private final Duration initialDelay;
+    private final Timer responseTimes;
+    private final Counter hedgedCalls;
+
+    /**
+     * @param operation     name of the hedged operation, used to tag its metrics
+     * @param percentile    of recent response times after which a call is hedged, e.g. 0.95
+     * @param initialDelay  after which a call is hedged until enough response times have been recorded
+     * @param meterRegistry to record response times in, and the number of hedged calls
+     */
+    public Hedging(String operation, double percentile, Duration initialDelay, MeterRegistry meterRegistry) {
+        this.initialDelay = initialDelay;
+        this.responseTimes = Timer.builder("items.client.reads")
+                .description("Time to the first response of a read call, at least as long as it ran if its hedge won")
+                .tag("operation", operation)
+                .publishPercentiles(percentile)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.hedgedCalls = Counter.builder("items.client.reads.hedged")
+                .description("Read calls that were hedged by a second call")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> execute(Mono<T> call) {
+        return Mono.defer(() -> {
+            Mono<T> hedgedCall = Mono.delay(hedgeDelay())
+                    .doOnNext(tick -> hedgedCalls.increment())
+                    .then(call);
+            return Mono.first(timed(call.flux()).next(), hedgedCall);
+        });
+    }
+
+    /**
+     * A stream is won by the call emitting first, the whole stream is then taken from it
+     */
+    public <T> Flux<T> execute(Flux<T> call) {
+        return Flux.defer(() -> {
+            Flux<T> hedgedCall = Mono.delay(hedgeDelay())
+                    .doOnNext(tick -> hedgedCalls.increment())
+                    .thenMany(call);
+            return Flux.first(timed(call), hedgedCall);
+        });
+    }
+
+    /**
+     * @return the configured percentile of the response times of the last minute, or the initial delay
+     */
+    Duration hedgeDelay() {
+        if (responseTimes.count() < MIN_RECORDED_CALLS) {
+            return initialDelay;
+        }
+        ValueAtPercentile[] percentiles = responseTimes.takeSnapshot().percentileValues();
+        long delayNanos = percentiles.length == 0 ? 0 : (long) percentiles[0].value(TimeUnit.NANOSECONDS);
+        // No calls within the last minute
+        return delayNanos > 0 ? Duration.ofNanos(delayNanos) : initialDelay;
+    }
+
+    long hedgedCalls() {
+        return (long) hedgedCalls.count();
+    }
+
+    private <T> Flux<T> timed(Flux<T> call) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            Runnable recordResponseTime = () -> {
+                if (recorded.compareAndSet(false, true)) {
+                    responseTimes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            };
+            return call.doOnNext(item -> recordResponseTime.run())
+                    .doOnComplete(recordResponseTime)
+                    .doOnError(e -> recordResponseTime.run())
+                    .doOnCancel(recordResponseTime);
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package de.maik.reactivespringclient.item.control;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guards read calls to the server's Items API (items.api.client.hedging.* and items.api.client.circuit-breaker.*):
+ * All reads share one {@link CircuitBreaker}, each operation is optionally hedged based on its own response times,
+ * see {@link Hedging}. A hedged call counts as a single call for the circuit breaker.
+ */
+@Component
+public class ResilientReads {
+
+    private final boolean hedgingEnabled;
+    private final double hedgingPercentile;
+    private final Duration hedgingInitialDelay;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Hedging> hedgingByOperation = new ConcurrentHashMap<>();
+    private final CircuitBreaker circuitBreaker;
+
+    @Autowired
+    public ResilientReads(MeterRegistry meterRegistry,
+                          @Value("${items.api.client.hedging.enabled:false}") boolean hedgingEnabled,
+                          @Value("${items.api.client.hedging.percentile:0.95}") double hedgingPercentile,
+                          @Value("${items.api.client.hedging.initial-delay:100ms}") Duration hedgingInitialDelay,
+                          @Value("${items.api.client.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                          @Value("${items.api.client.circuit-breaker.window-size:20}") int windowSize,
+                          @Value("${items.api.client.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                          @Value("${items.api.client.circuit-breaker.open-duration:10s}") Duration openDuration) {
+        this.meterRegistry = meterRegistry;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgingPercentile = hedgingPercentile;
+        this.hedgingInitialDelay = hedgingInitialDelay;
+        this.circuitBreaker = new CircuitBreaker("items-api", failureRateThreshold, windowSize, minimumCalls,
+                openDuration, ResilientReads::isServerFailure);
+        Gauge.builder("items.client.circuit.open", circuitBreaker,
+                breaker -> breaker.state() == CircuitBreaker.State.OPEN ? 1 : 0)
+                .description("1 while reads fail fast because the server failed too often")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param operation name of the read, response times are tracked per operation for hedging
+     * @param call      cold read call, may be subscribed to twice if hedged
+     */
+    public <T> Mono<T> execute(String operation, Mono<T> call) {
+        return circuitBreaker.execute(hedgingEnabled ? hedging(operation).execute(call) : call);
+    }
+
+    public <T> Flux<T> execute(String operation, Flux<T> call) {
+        return circuitBreaker.execute(hedgingEnabled ? hedging(operation).execute(call) : call);
+    }
+
+    /**
+     * Admits a read whose response is handed on with its body still to be read, like a pass-through.
+     * Such reads aren't hedged: The losing response's body would never be read, which leaks its connection.
+     *
+     * @return the read's permit to report its outcome to, once the body was read or reading it failed
+     */
+    public Mono<CircuitBreaker.Permit> acquire() {
+        return circuitBreaker.acquire();
+    }
+
+    private Hedging hedging(String operation) {
+        return hedgingByOperation.computeIfAbsent(operation,
+                op -> new Hedging(op, hedgingPercentile, hedgingInitialDelay, meterRegistry));
+    }
+
+    /**
+     * Client errors like 404 are answers, everything else (5xx, timeouts, refused connections) is a failure
+     */
+    private static boolean isServerFailure(Throwable e) {
+        return !(e instanceof WebClientResponseException
+                && ((WebClientResponseException) e).getStatusCode().is4xxClientError());
+    }
+}
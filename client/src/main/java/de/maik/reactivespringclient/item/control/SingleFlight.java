@@ -0,0 +1,65 @@
+package de.maik.reactivespringclient.item.control;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent calls for the same key: While a call is in flight, further callers for its key
+ * subscribe to the same upstream {@link Mono} instead of starting their own. The call is forgotten as soon as
+ * it terminates, so later callers start a fresh one - results are shared, but never cached.
+ * <p>
+ * Backed by a {@link ConcurrentHashMap}, so callers only contend if their keys share a hash bin.
+ * Note that the shared call runs to completion even if all of its callers cancel.
+ *
+ * @param <K> key type, e.g. an item id
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inFlightCalls = new ConcurrentHashMap<>();
+    private final LongAdder savedCalls = new LongAdder();
+
+    /**
+     * @param key    identifies the call
+     * @param loader starts the actual call, invoked at most once for concurrent callers of the same key
+     * @return the result of the shared call
+     */
+    public Mono<V> execute(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<V>> newCall = new AtomicReference<>();
+            Mono<V> call = inFlightCalls.computeIfAbsent(key, k -> {
+                newCall.set(startCall(k, loader));
+                return newCall.get();
+            });
+            if (call != newCall.get()) {
+                savedCalls.increment();
+            }
+            return call;
+        });
+    }
+
+    private Mono<V> startCall(K key, Function<K, Mono<V>> loader) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        // Removed before the result is handed out, so callers arriving afterwards start a new call
+        self.set(loader.apply(key)
+                .doOnTerminate(() -> inFlightCalls.remove(key, self.get()))
+                .cache());
+        return self.get();
+    }
+
+    /**
+     * @return number of calls that joined an in-flight call instead of starting their own
+     */
+    public long savedCalls() {
+        return savedCalls.sum();
+    }
+
+    public int inFlightCalls() {
+        return inFlightCalls.size();
+    }
+}
@@ -0,0 +1,18 @@
+package de.maik.reactivespringclient.item.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of looking up several items at once: The found items in request order, and the ids that weren't found
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemBatch {
+    private List<Item> items;
+    private List<String> missingIds;
+}
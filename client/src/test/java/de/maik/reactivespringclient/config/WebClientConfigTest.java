@@ -0,0 +1,68 @@
+package de.maik.reactivespringclient.config;
+
+import io.micrometer.core.instrument.Metrics;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against a local stub server with a fast and a stalling route
+ */
+class WebClientConfigTest {
+
+    private WebClientConfig webClientConfig = new WebClientConfig();
+    private DisposableServer stubServer;
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        stubServer = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/fast", (request, response) -> response.sendString(Mono.just("ok")))
+                        .get("/stalling", (request, response) -> response.sendString(Mono.never())))
+                .bindNow();
+        connectionProvider = webClientConfig.itemsApiConnectionProvider(2, 10, Duration.ofSeconds(1), Duration.ofSeconds(30));
+        webClient = webClientConfig.itemsApiWebClient(WebClient.builder(),
+                webClientConfig.itemsApiHttpClient(connectionProvider, Duration.ofSeconds(1), Duration.ofMillis(200),
+                        Duration.ofSeconds(1), false),
+                "http://localhost:" + stubServer.port());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        stubServer.disposeNow();
+    }
+
+    @Test
+    void poolPublishesConnectionGauges() {
+        StepVerifier.create(webClient.get().uri("/fast").retrieve().bodyToMono(String.class))
+                .expectNext("ok")
+                .verifyComplete();
+
+        assertThat(Metrics.globalRegistry.find("reactor.netty.connection.provider.active.connections")
+                .tag("name", "items-api").gauge()).isNotNull();
+        assertThat(Metrics.globalRegistry.find("reactor.netty.connection.provider.pending.connections")
+                .tag("name", "items-api").gauge()).isNotNull();
+    }
+
+    @Test
+    void stallingServerRunsIntoReadTimeout() {
+        StepVerifier.create(webClient.get().uri("/stalling").retrieve().bodyToMono(String.class))
+                .expectErrorMatches(e -> e.getCause() instanceof ReadTimeoutException || e instanceof ReadTimeoutException)
+                .verify(Duration.ofSeconds(5));
+    }
+}
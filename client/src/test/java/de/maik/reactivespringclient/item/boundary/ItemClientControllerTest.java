@@ -0,0 +1,200 @@
+package de.maik.reactivespringclient.item.boundary;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import de.maik.reactivespringclient.item.control.ResilientReads;
+import de.maik.reactivespringclient.item.entity.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against a local stub server knowing every item but ITMID13 for multi-gets, and a fixed catalog.
+ * Asked for the catalog as plain text, the stub server is unavailable.
+ */
+class ItemClientControllerTest {
+
+    private static final int CHUNK_SIZE = 10;
+    private static final String MISSING_ITEM_ID = "ITMID13";
+    private static final String CATALOG_JSON = "[{\"id\":\"ITMID1\",\"description\":\"Item 1\",\"price\":1.99}]";
+    private static final String CATALOG_NDJSON = "{\"id\":\"ITMID1\",\"description\":\"Item 1\",\"price\":1.99}\n";
+    private static final String CATALOG_NDJSON_TYPE = "application/x-ndjson";
+    private static final String STREAM_JSON_TYPE = "application/stream+json";
+    private static final String SMILE_TYPE = "application/x-jackson-smile";
+    private static final String UNAVAILABLE = "Unavailable";
+    private static final int CIRCUIT_BREAKER_MINIMUM_CALLS = 10;
+
+    private DisposableServer stubServer;
+    private AtomicInteger multiGetCalls = new AtomicInteger();
+    private CountDownLatch endlessStreamCancelled = new CountDownLatch(1);
+    private SimpleMeterRegistry meterRegistry;
+    private ItemClientController itemClientController;
+
+    @BeforeEach
+    void setUp() {
+        stubServer = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get("/v2/items", (request, response) -> {
+                    if (MediaType.TEXT_PLAIN_VALUE.equals(request.requestHeaders().get("Accept"))) {
+                        return response.status(503).header("Content-Type", MediaType.TEXT_PLAIN_VALUE)
+                                .sendString(Mono.just(UNAVAILABLE));
+                    }
+                    if (STREAM_JSON_TYPE.equals(request.requestHeaders().get("Accept"))) {
+                        // Endless stream, only ends when the client goes away
+                        return response.header("Content-Type", STREAM_JSON_TYPE)
+                                .sendString(Flux.interval(Duration.ofMillis(10))
+                                        .map(i -> "{\"id\":\"ITMID" + i + "\"}\n")
+                                        .doOnCancel(endlessStreamCancelled::countDown));
+                    }
+                    if (!request.uri().contains("ids=")) {
+                        boolean ndjson = CATALOG_NDJSON_TYPE.equals(request.requestHeaders().get("Accept"));
+                        return response.header("Content-Type", ndjson ? CATALOG_NDJSON_TYPE : "application/json")
+                                .sendString(Mono.just(ndjson ? CATALOG_NDJSON : CATALOG_JSON));
+                    }
+                    multiGetCalls.incrementAndGet();
+                    List<String> ids = new ArrayList<>(Arrays.asList(new QueryStringDecoder(request.uri())
+                            .parameters().get("ids").get(0).split(",")));
+                    ids.remove(MISSING_ITEM_ID);
+                    // Answer in reverse order, with the first chunks answering last
+                    Collections.reverse(ids);
+                    String itemsJson = ids.stream()
+                            .map(id -> "{\"id\":\"" + id + "\",\"description\":\"Item " + id + "\",\"price\":1.99}")
+                            .collect(Collectors.joining(",", "[", "]"));
+                    return response.header("Content-Type", "application/json")
+                            .sendString(Mono.just(itemsJson).delayElement(Duration.ofMillis(100 - 10 * multiGetCalls.get())));
+                })
+                .get("/v2/items/{itemId}", (request, response) -> {
+                    if (!SMILE_TYPE.equals(request.requestHeaders().get("Accept"))) {
+                        return response.status(406).send();
+                    }
+                    return response.header("Content-Type", SMILE_TYPE)
+                            .sendByteArray(Mono.fromCallable(() -> new ObjectMapper(new SmileFactory())
+                                    .writeValueAsBytes(new Item(request.param("itemId"), "Smile item", 1.99))));
+                }))
+                .bindNow();
+        meterRegistry = new SimpleMeterRegistry();
+        ResilientReads resilientReads = new ResilientReads(meterRegistry, false, 0.95, Duration.ofMillis(100),
+                0.5, 20, CIRCUIT_BREAKER_MINIMUM_CALLS, Duration.ofSeconds(10));
+        itemClientController = createController(resilientReads, meterRegistry, MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private ItemClientController createController(ResilientReads resilientReads, SimpleMeterRegistry meterRegistry,
+                                                  String itemsMediaType) {
+        return new ItemClientController(WebClient.create("http://localhost:" + stubServer.port()),
+                meterRegistry, resilientReads, Duration.ofSeconds(10), 100, CHUNK_SIZE, 4, itemsMediaType);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.disposeNow();
+    }
+
+    @Test
+    void passThroughForwardsServerResponseAsIs() {
+        WebTestClient.bindToController(itemClientController).build()
+                .get().uri("/items?passThrough=true")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody(String.class).isEqualTo(CATALOG_JSON);
+    }
+
+    @Test
+    void passThroughForwardsAcceptHeaderForStreaming() {
+        WebTestClient.bindToController(itemClientController).build()
+                .get().uri("/items?passThrough=true")
+                .header(HttpHeaders.ACCEPT, CATALOG_NDJSON_TYPE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CATALOG_NDJSON_TYPE)
+                .expectBody(String.class).isEqualTo(CATALOG_NDJSON);
+    }
+
+    @Test
+    void passThroughForwardsServerErrorsAndCountsThemAsFailures() {
+        WebTestClient webTestClient = WebTestClient.bindToController(itemClientController).build();
+        for (int i = 0; i < CIRCUIT_BREAKER_MINIMUM_CALLS; i++) {
+            webTestClient.get().uri("/items?passThrough=true")
+                    .header(HttpHeaders.ACCEPT, MediaType.TEXT_PLAIN_VALUE)
+                    .exchange()
+                    .expectStatus().isEqualTo(503)
+                    .expectBody(String.class).isEqualTo(UNAVAILABLE);
+        }
+
+        assertThat(meterRegistry.get("items.client.circuit.open").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void cancellingPassThroughCancelsServerStream() throws InterruptedException {
+        StepVerifier.create(itemClientController.getAllPassThrough(STREAM_JSON_TYPE)
+                .flatMapMany(ResponseEntity::getBody)
+                .map(DataBufferUtils::release)
+                .take(1))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(endlessStreamCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void itemsAreRequestedAndDecodedInConfiguredMediaType() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ItemClientController smileClientController = createController(new ResilientReads(meterRegistry, false, 0.95,
+                Duration.ofMillis(100), 0.5, 20, 10, Duration.ofSeconds(10)), meterRegistry, SMILE_TYPE);
+
+        StepVerifier.create(smileClientController.retrieveById("ITMID1"))
+                .expectNext(new Item("ITMID1", "Smile item", 1.99))
+                .verifyComplete();
+    }
+
+    @Test
+    void itemsAreLookedUpInChunksAndReturnedInRequestOrder() {
+        List<String> ids = IntStream.range(0, 35).mapToObj(i -> "ITMID" + i).collect(Collectors.toList());
+
+        StepVerifier.create(itemClientController.retrieveByIds(ids))
+                .assertNext(itemBatch -> {
+                    assertThat(itemBatch.getItems()).extracting("id")
+                            .containsExactlyElementsOf(ids.stream()
+                                    .filter(id -> !id.equals(MISSING_ITEM_ID))
+                                    .collect(Collectors.toList()));
+                    assertThat(itemBatch.getMissingIds()).containsExactly(MISSING_ITEM_ID);
+                })
+                .verifyComplete();
+        assertThat(multiGetCalls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void duplicateIdsAreLookedUpOnce() {
+        StepVerifier.create(itemClientController.retrieveByIds(Arrays.asList("ITMID1", "ITMID2", "ITMID1")))
+                .assertNext(itemBatch -> assertThat(itemBatch.getItems()).extracting("id")
+                        .containsExactly("ITMID1", "ITMID2"))
+                .verifyComplete();
+        assertThat(multiGetCalls.get()).isEqualTo(1);
+    }
+}
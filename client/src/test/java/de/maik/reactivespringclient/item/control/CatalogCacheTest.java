@@ -0,0 +1,124 @@
+package de.maik.reactivespringclient.item.control;
+
+import de.maik.reactivespringclient.item.entity.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(10);
+    private static final Item OLD_ITEM = new Item("ITMID001", "Rondo Ruut ST", 2399.99);
+    private static final Item NEW_ITEM = new Item("ITMID001", "Rondo Ruut ST", 1999.99);
+
+    private MutableClock clock;
+    private AtomicInteger loads;
+    private TestPublisher<Item> server;
+    private CatalogCache catalogCache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        loads = new AtomicInteger();
+        server = TestPublisher.create();
+        catalogCache = new CatalogCache(this::loadCatalog, TTL, 2, clock);
+    }
+
+    @Test
+    void catalogIsServedFromSnapshotWithinTtl() {
+        catalogCache = new CatalogCache(() -> Flux.just(OLD_ITEM).doOnSubscribe(s -> loads.incrementAndGet()),
+                TTL, 2, clock);
+
+        StepVerifier.create(catalogCache.getAll()).expectNext(OLD_ITEM).verifyComplete();
+        clock.advance(TTL);
+        StepVerifier.create(catalogCache.getAll()).expectNext(OLD_ITEM).verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentCallersWithoutSnapshotShareOneLoad() {
+        StepVerifier first = StepVerifier.create(catalogCache.getAll()).expectNext(OLD_ITEM).expectComplete().verifyLater();
+        StepVerifier second = StepVerifier.create(catalogCache.getAll()).expectNext(OLD_ITEM).expectComplete().verifyLater();
+
+        server.emit(OLD_ITEM);
+
+        first.verify();
+        second.verify();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredSnapshotIsServedWhileASingleRefreshRuns() {
+        loadSnapshotOf(OLD_ITEM);
+        clock.advance(TTL.plusSeconds(1));
+
+        for (int i = 0; i < 100; i++) {
+            StepVerifier.create(catalogCache.getAll()).expectNext(OLD_ITEM).verifyComplete();
+        }
+        assertThat(loads.get()).isEqualTo(2);
+
+        server.emit(NEW_ITEM);
+        StepVerifier.create(catalogCache.getAll()).expectNext(NEW_ITEM).verifyComplete();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failedRefreshKeepsStaleSnapshotAndIsRetriedByNextCaller() {
+        loadSnapshotOf(OLD_ITEM);
+        clock.advance(TTL.plusSeconds(1));
+
+        StepVerifier.create(catalogCache.getAll()).expectNext(OLD_ITEM).verifyComplete();
+        server.error(new IllegalStateException("Server unavailable"));
+        server = TestPublisher.create();
+        StepVerifier.create(catalogCache.getAll()).expectNext(OLD_ITEM).verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void catalogExceedingMaximumSizeIsStreamedThroughWithoutBeingBuffered() {
+        int catalogSize = 1000;
+        AtomicInteger itemsRead = new AtomicInteger();
+        catalogCache = new CatalogCache(() -> Flux.range(0, catalogSize)
+                .map(i -> new Item("ITMID" + i, "Item " + i, 1.99))
+                .doOnSubscribe(s -> loads.incrementAndGet())
+                .doOnNext(item -> itemsRead.incrementAndGet()), TTL, 2, clock);
+
+        StepVerifier.create(catalogCache.getAll()).expectNextCount(catalogSize).verifyComplete();
+        // The load stops after one item too many, then the catalog is streamed from a call of its own
+        assertThat(itemsRead.get()).isEqualTo(3 + catalogSize);
+
+        StepVerifier.create(catalogCache.getAll()).expectNextCount(catalogSize).verifyComplete();
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void callersGetCopiesOfCachedItems() {
+        catalogCache = new CatalogCache(() -> Flux.just(new Item(OLD_ITEM.getId(), OLD_ITEM.getDescription(),
+                OLD_ITEM.getPrice())), TTL, 2, clock);
+
+        catalogCache.getAll().blockFirst().setPrice(0.01);
+
+        StepVerifier.create(catalogCache.getAll()).expectNext(OLD_ITEM).verifyComplete();
+    }
+
+    private void loadSnapshotOf(Item item) {
+        StepVerifier firstCaller = StepVerifier.create(catalogCache.getAll()).expectNext(item).expectComplete().verifyLater();
+        server.emit(item);
+        firstCaller.verify();
+        server = TestPublisher.create();
+    }
+
+    private Flux<Item> loadCatalog() {
+        loads.incrementAndGet();
+        return server.flux();
+    }
+}
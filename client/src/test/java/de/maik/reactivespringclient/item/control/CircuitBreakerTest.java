@@ -0,0 +1,167 @@
+package de.maik.reactivespringclient.item.control;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+
+    private MutableClock clock;
+    private AtomicInteger calls;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        calls = new AtomicInteger();
+        circuitBreaker = new CircuitBreaker("test", 0.5, 4, 4, OPEN_DURATION,
+                e -> !(e instanceof IllegalArgumentException), clock);
+    }
+
+    @Test
+    void circuitOpensAtFailureRateAndFailsFastWithoutCalling() {
+        succeed();
+        succeed();
+        fail();
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        fail();
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        StepVerifier.create(circuitBreaker.execute(call(Mono.just("ok"))))
+                .verifyError(CircuitBreakerOpenException.class);
+        assertThat(calls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void failureRateOnlyConsidersTheMostRecentCalls() {
+        fail();
+        succeed();
+        succeed();
+        succeed();
+        fail(); // Replaces the first failure
+
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void errorsNotCountingAsFailureDontOpenTheCircuit() {
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(circuitBreaker.execute(call(Mono.error(new IllegalArgumentException()))))
+                    .verifyError(IllegalArgumentException.class);
+        }
+
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void singleTrialCallAfterOpenDurationClosesCircuitOnSuccess() {
+        openCircuit();
+        clock.advance(OPEN_DURATION);
+        TestPublisher<String> trialCall = TestPublisher.create();
+
+        StepVerifier trial = StepVerifier.create(circuitBreaker.execute(trialCall.mono()))
+                .expectNext("ok")
+                .expectComplete()
+                .verifyLater();
+        StepVerifier.create(circuitBreaker.execute(call(Mono.just("ok"))))
+                .verifyError(CircuitBreakerOpenException.class);
+        trialCall.emit("ok");
+        trial.verify();
+
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        succeed();
+    }
+
+    @Test
+    void failedTrialCallOpensCircuitAgain() {
+        openCircuit();
+        clock.advance(OPEN_DURATION);
+
+        fail();
+
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void callAdmittedBeforeTheCircuitOpenedDoesNotDecideTheTrial() {
+        TestPublisher<String> slowCall = TestPublisher.create();
+        StepVerifier slow = StepVerifier.create(circuitBreaker.execute(slowCall.mono()))
+                .expectNext("ok")
+                .expectComplete()
+                .verifyLater();
+        openCircuit();
+        clock.advance(OPEN_DURATION);
+        TestPublisher<String> trialCall = TestPublisher.create();
+        StepVerifier trial = StepVerifier.create(circuitBreaker.execute(trialCall.mono()))
+                .expectError(IllegalStateException.class)
+                .verifyLater();
+
+        slowCall.emit("ok");
+        slow.verify();
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        trialCall.error(new IllegalStateException("Server error"));
+        trial.verify();
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void cancellingACallAdmittedBeforeTheCircuitOpenedDoesNotAdmitAnotherTrial() {
+        Disposable slowCall = circuitBreaker.execute(TestPublisher.<String>create().mono()).subscribe();
+        openCircuit();
+        clock.advance(OPEN_DURATION);
+        Disposable trialCall = circuitBreaker.execute(TestPublisher.<String>create().mono()).subscribe();
+
+        slowCall.dispose();
+
+        StepVerifier.create(circuitBreaker.execute(call(Mono.just("ok"))))
+                .verifyError(CircuitBreakerOpenException.class);
+        trialCall.dispose();
+    }
+
+    @Test
+    void streamCountsAsSuccessfulWithItsFirstItem() {
+        openCircuit();
+        clock.advance(OPEN_DURATION);
+
+        StepVerifier.create(circuitBreaker.execute(Flux.just("first", "second")).take(1))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void succeed() {
+        StepVerifier.create(circuitBreaker.execute(call(Mono.just("ok")))).expectNext("ok").verifyComplete();
+    }
+
+    private void fail() {
+        StepVerifier.create(circuitBreaker.execute(call(Mono.error(new IllegalStateException("Server error")))))
+                .verifyError(IllegalStateException.class);
+    }
+
+    private Mono<String> call(Mono<String> result) {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return result;
+        });
+    }
+}
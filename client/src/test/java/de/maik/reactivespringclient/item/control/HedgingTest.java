@@ -0,0 +1,120 @@
+package de.maik.reactivespringclient.item.control;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against a local stub server whose first response to /slow-first stalls, like a server in a GC pause would,
+ * and which stalls every other response to /slow-every-other
+ */
+class HedgingTest {
+
+    private static final Duration INITIAL_DELAY = Duration.ofMillis(50);
+    private static final Duration STALL = Duration.ofSeconds(5);
+
+    private DisposableServer stubServer;
+    private AtomicInteger requests = new AtomicInteger();
+    private CountDownLatch stalledResponseCancelled = new CountDownLatch(1);
+    private WebClient webClient;
+    private Hedging hedging;
+
+    @BeforeEach
+    void setUp() {
+        stubServer = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/fast", (request, response) -> {
+                            requests.incrementAndGet();
+                            return response.sendString(Mono.just("fast"));
+                        })
+                        .get("/slow-first", (request, response) -> {
+                            if (requests.incrementAndGet() > 1) {
+                                return response.sendString(Mono.just("hedged"));
+                            }
+                            return response.sendString(Mono.just("stalled").delayElement(STALL)
+                                    .doOnCancel(stalledResponseCancelled::countDown));
+                        })
+                        .get("/slow-every-other", (request, response) -> {
+                            if (requests.incrementAndGet() % 2 == 0) {
+                                return response.sendString(Mono.just("hedged"));
+                            }
+                            return response.sendString(Mono.just("stalled").delayElement(STALL));
+                        }))
+                .bindNow();
+        webClient = WebClient.create("http://localhost:" + stubServer.port());
+        hedging = new Hedging("test", 0.95, INITIAL_DELAY, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.disposeNow();
+    }
+
+    @Test
+    void stalledCallIsHedgedAndCancelled() throws InterruptedException {
+        StepVerifier.create(hedging.execute(get("/slow-first")))
+                .expectNext("hedged")
+                .expectComplete()
+                .verify(STALL.dividedBy(2));
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(hedging.hedgedCalls()).isEqualTo(1);
+        assertThat(stalledResponseCancelled.await(STALL.toMillis() / 2, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    void streamIsTakenFromTheCallEmittingFirst() {
+        StepVerifier.create(hedging.execute(webClient.get().uri("/slow-first").retrieve().bodyToFlux(String.class)))
+                .expectNext("hedged")
+                .expectComplete()
+                .verify(STALL.dividedBy(2));
+    }
+
+    @Test
+    void callAnsweringWithinTheDelayIsNotHedged() {
+        StepVerifier.create(hedging.execute(get("/fast")).delayElement(INITIAL_DELAY.multipliedBy(2)))
+                .expectNext("fast")
+                .verifyComplete();
+
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(hedging.hedgedCalls()).isZero();
+    }
+
+    @Test
+    void delayFollowsRecordedResponseTimes() {
+        Hedging hedgingWithLongInitialDelay = new Hedging("test", 0.95, STALL, new SimpleMeterRegistry());
+        assertThat(hedgingWithLongInitialDelay.hedgeDelay()).isEqualTo(STALL);
+
+        Flux.range(0, 50).concatMap(i -> hedgingWithLongInitialDelay.execute(get("/fast"))).blockLast();
+
+        assertThat(hedgingWithLongInitialDelay.hedgeDelay()).isLessThan(STALL);
+    }
+
+    @Test
+    void delayStaysStableWhileHedgesKeepWinning() {
+        Flux.range(0, 40).concatMap(i -> hedging.execute(get("/slow-every-other"))).blockLast();
+
+        assertThat(hedging.hedgedCalls()).isEqualTo(40);
+        // Timing only the winners would bring the delay down to the few milliseconds a fast answer takes
+        assertThat(hedging.hedgeDelay()).isGreaterThanOrEqualTo(INITIAL_DELAY.dividedBy(2));
+    }
+
+    private Mono<String> get(String uri) {
+        return webClient.get().uri(uri).retrieve().bodyToMono(String.class);
+    }
+}
@@ -0,0 +1,110 @@
+package de.maik.reactivespringclient.item.control;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private SingleFlight<String, String> singleFlight;
+    private AtomicInteger upstreamCalls;
+    private TestPublisher<String> upstream;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = new SingleFlight<>();
+        upstreamCalls = new AtomicInteger();
+        upstream = TestPublisher.create();
+    }
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() {
+        StepVerifier first = StepVerifier.create(singleFlight.execute("ITMID001", this::load))
+                .expectNext("ITMID001 loaded")
+                .expectComplete()
+                .verifyLater();
+        StepVerifier second = StepVerifier.create(singleFlight.execute("ITMID001", this::load))
+                .expectNext("ITMID001 loaded")
+                .expectComplete()
+                .verifyLater();
+
+        upstream.emit("ITMID001 loaded");
+
+        first.verify();
+        second.verify();
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(singleFlight.savedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void completedCallIsForgottenSoLaterCallersStartANewOne() {
+        AtomicInteger loads = new AtomicInteger();
+        singleFlight.execute("ITMID001", key -> Mono.fromCallable(loads::incrementAndGet).map(String::valueOf)).block();
+
+        StepVerifier.create(singleFlight.execute("ITMID001",
+                key -> Mono.fromCallable(loads::incrementAndGet).map(String::valueOf)))
+                .expectNext("2")
+                .verifyComplete();
+        assertThat(singleFlight.inFlightCalls()).isZero();
+    }
+
+    @Test
+    void errorsAreSharedAndNotRemembered() {
+        StepVerifier first = StepVerifier.create(singleFlight.execute("ITMID001", this::load))
+                .expectError(IllegalStateException.class)
+                .verifyLater();
+        StepVerifier second = StepVerifier.create(singleFlight.execute("ITMID001", this::load))
+                .expectError(IllegalStateException.class)
+                .verifyLater();
+
+        upstream.error(new IllegalStateException());
+
+        first.verify();
+        second.verify();
+        assertThat(singleFlight.inFlightCalls()).isZero();
+    }
+
+    @Test
+    void callsForDifferentKeysAreNotCoalesced() {
+        Flux.merge(singleFlight.execute("ITMID001", this::load), singleFlight.execute("ITMID002", this::load))
+                .subscribe();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(singleFlight.savedCalls()).isZero();
+    }
+
+    @Test
+    void manyConcurrentCallersFromDifferentThreadsCauseASingleCall() {
+        int callers = 1000;
+        Mono<List<String>> allResults = Flux.range(0, callers)
+                .flatMap(i -> singleFlight.execute("ITMID001", this::load).subscribeOn(Schedulers.parallel()), callers)
+                .collectList();
+
+        StepVerifier.create(allResults)
+                .then(() -> {
+                    // Complete the upstream call only once every caller has joined it
+                    while (upstreamCalls.get() + singleFlight.savedCalls() < callers) {
+                        Thread.yield();
+                    }
+                    upstream.emit("ITMID001 loaded");
+                })
+                .assertNext(results -> assertThat(results).hasSize(callers).containsOnly("ITMID001 loaded"))
+                .verifyComplete();
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(singleFlight.savedCalls()).isEqualTo(callers - 1);
+    }
+
+    private Mono<String> load(String key) {
+        upstreamCalls.incrementAndGet();
+        return upstream.mono();
+    }
+}
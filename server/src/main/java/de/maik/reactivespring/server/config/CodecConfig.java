@@ -0,0 +1,70 @@
+package de.maik.reactivespring.server.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Registers additional media types with the WebFlux codecs
+ */
+@Configuration
+public class CodecConfig {
+
+    /**
+     * Newline delimited JSON, not yet known to Spring's {@link MediaType}
+     */
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+    /**
+     * Binary JSON, more compact and cheaper to encode and decode than JSON
+     */
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final MediaType APPLICATION_ANY_JSON = MediaType.valueOf("application/*+json");
+    private static final MediaType APPLICATION_ANY_SMILE = MediaType.valueOf("application/*+x-jackson-smile");
+
+    /**
+     * Teach the Jackson codecs to read and write NDJSON. Just like stream+json
+     * it is written element by element (and flushed after each one) instead of as a single array.
+     * Runs after Boot's own Jackson customizer, so the application's ObjectMapper is kept.
+     */
+    @Bean
+    public CodecCustomizer ndjsonCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> {
+            Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper,
+                    MediaType.APPLICATION_JSON, APPLICATION_ANY_JSON, APPLICATION_NDJSON);
+            encoder.setStreamingMediaTypes(Arrays.asList(MediaType.APPLICATION_STREAM_JSON, APPLICATION_NDJSON));
+            configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+            configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper,
+                    MediaType.APPLICATION_JSON, APPLICATION_ANY_JSON, APPLICATION_NDJSON));
+        };
+    }
+
+    /**
+     * Configures Spring's Smile codecs like the application's JSON ObjectMapper, rather than with Jackson's defaults.
+     * Clients opt in through their Accept header, JSON stays the default.
+     * <p>
+     * CBOR is left out on purpose: Spring 5.2 can only add it as a custom codec, which takes precedence over
+     * JSON for wildcard Accept headers, and its encoder doesn't support single values written as a Mono.
+     */
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder jacksonObjectMapperBuilder) {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        jacksonObjectMapperBuilder.configure(smileMapper);
+        return configurer -> {
+            // Without explicit media types the codecs would claim JSON
+            configurer.defaultCodecs().jackson2SmileEncoder(
+                    new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE, APPLICATION_ANY_SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(
+                    new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE, APPLICATION_ANY_SMILE));
+        };
+    }
+}
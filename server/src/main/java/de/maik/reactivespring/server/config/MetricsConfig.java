@@ -0,0 +1,59 @@
+package de.maik.reactivespring.server.config;
+
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.server.WebFilter;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metrics on top of what Spring Boot records out of the box.
+ * <p>
+ * Boot already times every request of both API versions as http.server.requests, tagged by route pattern,
+ * status, outcome and exception. All metrics are exposed for scraping at /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Requests in flight, which Boot's request timer only records once they are done.
+     * The timer of each HTTP method is looked up once rather than per request.
+     */
+    @Bean
+    public WebFilter activeRequestsWebFilter(MeterRegistry meterRegistry) {
+        ConcurrentHashMap<String, LongTaskTimer> activeRequestsByMethod = new ConcurrentHashMap<>();
+        return (exchange, chain) -> {
+            LongTaskTimer.Sample active = activeRequestsByMethod.computeIfAbsent(exchange.getRequest().getMethodValue(),
+                    method -> LongTaskTimer.builder("http.server.requests.active")
+                            .tag("method", method)
+                            .register(meterRegistry))
+                    .start();
+            return chain.filter(exchange).doFinally(signalType -> active.stop());
+        };
+    }
+
+    /**
+     * Wraps the {@link ItemRepository} into a proxy recording {@link ReactiveRepositoryMetrics}.
+     * Static and lazy on the registry, so the post processor itself doesn't pull in other beans too early.
+     */
+    @Bean
+    public static BeanPostProcessor itemRepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof ItemRepository)) {
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addAdvice(new ReactiveRepositoryMetrics(meterRegistry.getObject(), "item"));
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+}
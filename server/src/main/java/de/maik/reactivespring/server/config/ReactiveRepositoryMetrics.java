@@ -0,0 +1,115 @@
+package de.maik.reactivespring.server.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records metrics for every call of a reactive repository method, tagged by repository and method:
+ * <ul>
+ *     <li>{@value #CALLS}: latency timer from subscription to termination, tagged by outcome and exception type</li>
+ *     <li>{@value #ACTIVE_CALLS}: calls in flight</li>
+ *     <li>{@value #ELEMENTS}: number of elements emitted by {@link Flux} results</li>
+ * </ul>
+ * Timing starts on subscription rather than on the method call, as that's when the database is actually queried.
+ * The meters of each method are looked up once, only the latency timer depends on how the call ended.
+ */
+public class ReactiveRepositoryMetrics implements MethodInterceptor {
+
+    static final String CALLS = "items.repository.calls";
+    static final String ACTIVE_CALLS = "items.repository.calls.active";
+    static final String ELEMENTS = "items.repository.elements";
+
+    private MeterRegistry meterRegistry;
+    private String repositoryName;
+    private ConcurrentHashMap<String, LongTaskTimer> activeCallsByMethod = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, Counter> elementsByMethod = new ConcurrentHashMap<>();
+
+    public ReactiveRepositoryMetrics(MeterRegistry meterRegistry, String repositoryName) {
+        this.meterRegistry = meterRegistry;
+        this.repositoryName = repositoryName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        String methodName = invocation.getMethod().getName();
+        if (result instanceof Mono) {
+            LongTaskTimer activeCalls = activeCallsOf(methodName);
+            return Mono.defer(() -> {
+                CallRecording recording = new CallRecording(methodName, activeCalls);
+                return ((Mono<?>) result)
+                        .doOnError(recording::failedWith)
+                        .doFinally(recording::stop);
+            });
+        }
+        if (result instanceof Flux) {
+            LongTaskTimer activeCalls = activeCallsOf(methodName);
+            Counter elements = elementsByMethod.computeIfAbsent(methodName, name -> meterRegistry.counter(ELEMENTS,
+                    "repository", repositoryName, "method", name));
+            return Flux.defer(() -> {
+                CallRecording recording = new CallRecording(methodName, activeCalls);
+                return ((Flux<?>) result)
+                        .doOnNext(element -> elements.increment())
+                        .doOnError(recording::failedWith)
+                        .doFinally(recording::stop);
+            });
+        }
+        return result;
+    }
+
+    private LongTaskTimer activeCallsOf(String methodName) {
+        return activeCallsByMethod.computeIfAbsent(methodName, name -> LongTaskTimer.builder(ACTIVE_CALLS)
+                .tags("repository", repositoryName, "method", name)
+                .register(meterRegistry));
+    }
+
+    /**
+     * State of a single subscription to a repository result
+     */
+    private class CallRecording {
+
+        private String methodName;
+        private Timer.Sample latency;
+        private LongTaskTimer.Sample active;
+        private Throwable error;
+
+        CallRecording(String methodName, LongTaskTimer activeCalls) {
+            this.methodName = methodName;
+            this.latency = Timer.start(meterRegistry);
+            this.active = activeCalls.start();
+        }
+
+        void failedWith(Throwable error) {
+            this.error = error;
+        }
+
+        void stop(SignalType signalType) {
+            active.stop();
+            latency.stop(Timer.builder(CALLS)
+                    .tags("repository", repositoryName, "method", methodName,
+                            "outcome", outcomeOf(signalType),
+                            "exception", error == null ? "none" : error.getClass().getSimpleName())
+                    .register(meterRegistry));
+        }
+
+        private String outcomeOf(SignalType signalType) {
+            switch (signalType) {
+                case ON_COMPLETE:
+                    return "success";
+                case ON_ERROR:
+                    return "error";
+                default:
+                    return "cancelled";
+            }
+        }
+    }
+}
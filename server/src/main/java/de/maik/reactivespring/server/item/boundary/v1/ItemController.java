@@ -1,9 +1,17 @@
 package de.maik.reactivespring.server.item.boundary.v1;
 
+import de.maik.reactivespring.server.item.control.ItemCache;
+import de.maik.reactivespring.server.item.control.ItemETags;
+import de.maik.reactivespring.server.item.control.ItemModifiedException;
+import de.maik.reactivespring.server.item.control.ItemPage;
+import de.maik.reactivespring.server.item.control.ItemPager;
+import de.maik.reactivespring.server.item.control.ItemResponseCache;
+import de.maik.reactivespring.server.item.control.ItemUpdater;
 import de.maik.reactivespring.server.item.document.Item;
 import de.maik.reactivespring.server.item.document.ItemRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,11 +20,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Classic, Spring-Style REST Controller for Items API
  */
@@ -26,46 +38,104 @@ public class ItemController {
 
     private static final String ITEMS_ENDPOINT_V1 = "/v1/items";
     private ItemRepository itemRepository;
+    private ItemCache itemCache;
+    private ItemPager itemPager;
+    private ItemUpdater itemUpdater;
+    private ItemResponseCache itemResponseCache;
 
+    /**
+     * Only v2 serves responses from the {@link ItemResponseCache}, but writes through v1 have to evict them as well
+     */
     @Autowired
-    public ItemController(ItemRepository itemRepository) {
+    public ItemController(ItemRepository itemRepository, ItemCache itemCache, ItemPager itemPager,
+                          ItemUpdater itemUpdater, ItemResponseCache itemResponseCache) {
         this.itemRepository = itemRepository;
+        this.itemCache = itemCache;
+        this.itemPager = itemPager;
+        this.itemUpdater = itemUpdater;
+        this.itemResponseCache = itemResponseCache;
     }
 
+    /**
+     * Matching If-None-Match headers are answered with 304 and no body by Spring,
+     * based on the ETag over the whole listing.
+     */
     @GetMapping(ITEMS_ENDPOINT_V1)
-    public Flux<Item> getAll() {
-        return itemRepository.findAll();
+    public Mono<ResponseEntity<List<Item>>> getAll() {
+        return itemRepository.findAll()
+                .collectList()
+                .map(items -> ResponseEntity.ok()
+                        .eTag(ItemETags.of(items))
+                        .body(items));
+    }
+
+    /**
+     * Returns a single page of items ordered by id. If there are more items, the response
+     * carries a continuation token header that can be passed in to retrieve the next page.
+     *
+     * @param size              max. number of items on the page
+     * @param continuationToken token from the previous page's response, absent for the first page
+     * @return 200 and the page's items if ok, 400 for invalid sizes or tokens
+     */
+    @GetMapping(value = ITEMS_ENDPOINT_V1, params = "size")
+    public Mono<ResponseEntity<List<Item>>> getPage(@RequestParam int size,
+                                                    @RequestParam(required = false) String continuationToken) {
+        return itemPager.getPage(continuationToken, size)
+                .map(this::toResponseEntity)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
     }
 
     @GetMapping(ITEMS_ENDPOINT_V1 + "/{itemId}")
     public Mono<ResponseEntity<Item>> getOne(@PathVariable String itemId) {
-        return itemRepository.findById(itemId)
-                .map(item -> new ResponseEntity<>(item, HttpStatus.OK))
+        return itemCache.findById(itemId)
+                .map(item -> ResponseEntity.ok()
+                        .eTag(ItemETags.of(item))
+                        .body(item))
                 .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @PostMapping(ITEMS_ENDPOINT_V1)
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<Item> createOne(@RequestBody Item item) {
-        return itemRepository.save(item);
+        return itemRepository.save(item)
+                .doOnNext(savedItem -> {
+                    itemCache.put(savedItem);
+                    itemResponseCache.evictItem(savedItem.getId());
+                });
     }
 
     @DeleteMapping(ITEMS_ENDPOINT_V1 + "/{itemId}")
     public Mono<Void> deleteOne(@PathVariable String itemId) {
-        return itemRepository.deleteById(itemId);
+        return itemRepository.deleteById(itemId)
+                .doFinally(signalType -> {
+                    itemCache.evict(itemId);
+                    itemResponseCache.evictItem(itemId);
+                });
     }
 
+    /**
+     * @param ifMatch optional ETags the item has to match for the update to happen
+     * @return 200 and the updated item if ok, 404 if there is no such item, 412 if the If-Match precondition failed
+     */
     @PutMapping(ITEMS_ENDPOINT_V1 + "/{itemId}")
     public Mono<ResponseEntity<Item>> updateOne(@PathVariable String itemId,
-                                                @RequestBody Item itemFromRequest) {
-        return itemRepository.findById(itemId)
-                .flatMap(itemFromRepository -> {
-                    itemFromRepository.setDescription(itemFromRequest.getDescription());
-                    itemFromRepository.setPrice(itemFromRequest.getPrice());
-                    return itemRepository.save(itemFromRepository);
-                })
-                .map(updatedItem -> new ResponseEntity<>(updatedItem, HttpStatus.OK))
-                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+                                                @RequestBody Item itemFromRequest,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) List<String> ifMatch) {
+        return itemUpdater.update(itemId, itemFromRequest, ifMatch == null ? Collections.emptyList() : ifMatch)
+                .map(updatedItem -> ResponseEntity.ok()
+                        .eTag(ItemETags.of(updatedItem))
+                        .body(updatedItem))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND))
+                .onErrorResume(ItemModifiedException.class,
+                        e -> Mono.just(new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED)));
+    }
+
+    private ResponseEntity<List<Item>> toResponseEntity(ItemPage page) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+        if (page.hasNextPage()) {
+            responseBuilder.header(ItemPage.CONTINUATION_TOKEN_HEADER, page.getContinuationToken());
+        }
+        return responseBuilder.body(page.getItems());
     }
 
 }
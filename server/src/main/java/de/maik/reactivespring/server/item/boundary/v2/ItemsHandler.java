@@ -1,47 +1,369 @@
 package de.maik.reactivespring.server.item.boundary.v2;
 
+import de.maik.reactivespring.server.config.CodecConfig;
+import de.maik.reactivespring.server.item.control.EncodedResponse;
+import de.maik.reactivespring.server.item.control.ItemCache;
+import de.maik.reactivespring.server.item.control.ItemChange;
+import de.maik.reactivespring.server.item.control.ItemChangeFeed;
+import de.maik.reactivespring.server.item.control.ItemETags;
+import de.maik.reactivespring.server.item.control.ItemModifiedException;
+import de.maik.reactivespring.server.item.control.ItemPage;
+import de.maik.reactivespring.server.item.control.ItemPager;
+import de.maik.reactivespring.server.item.control.ItemPriceRangePager;
+import de.maik.reactivespring.server.item.control.ItemPriceStatistics;
+import de.maik.reactivespring.server.item.control.ItemProjection;
+import de.maik.reactivespring.server.item.control.ItemResponseCache;
+import de.maik.reactivespring.server.item.control.ItemUpdater;
 import de.maik.reactivespring.server.item.document.Item;
 import de.maik.reactivespring.server.item.document.ItemRepository;
+import de.maik.reactivespring.server.item.initializers.ItemIndexInitializer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
+import static org.springframework.web.reactive.function.BodyInserters.fromDataBuffers;
 import static org.springframework.web.reactive.function.BodyInserters.fromValue;
 
 @Component
 public class ItemsHandler {
 
+    static final int MAX_IDS_PER_REQUEST = 500;
     private static final String ITEM_ID_PATH_VARIABLE = "itemId";
+    private static final String ALL_ITEMS_LISTING = "all";
+    private static final String GZIP = "gzip";
+    private static final String DEFAULT_PERCENTILES = "50,90,95,99";
+    private static final String DEFAULT_BUCKETS = "10";
     private ItemRepository itemRepository;
+    private ItemCache itemCache;
+    private ItemPager itemPager;
+    private ItemUpdater itemUpdater;
+    private ItemChangeFeed itemChangeFeed;
+    private ItemResponseCache itemResponseCache;
+    private ItemPriceStatistics itemPriceStatistics;
+    private ItemPriceRangePager itemPriceRangePager;
+    private int streamingPrefetch;
+    private int batchChunkSize;
+    private int batchConcurrency;
+    private static final List<MediaType> ITEM_MEDIA_TYPES =
+            Arrays.asList(MediaType.APPLICATION_JSON, CodecConfig.APPLICATION_SMILE);
+    private static final ParameterizedTypeReference<Map<String, Object>> PROJECTED_ITEM_TYPE =
+            new ParameterizedTypeReference<Map<String, Object>>() {
+            };
+    // Wraps cached bytes without copying them
+    private static final DataBufferFactory DATA_BUFFER_FACTORY = new DefaultDataBufferFactory();
     // Syntactic sugar for 404 response creation
     private static Mono<ServerResponse> notFoundMono = ServerResponse.notFound().build();
 
     @Autowired
-    public ItemsHandler(ItemRepository itemRepository) {
+    public ItemsHandler(ItemRepository itemRepository, ItemCache itemCache, ItemPager itemPager,
+                        ItemUpdater itemUpdater, ItemChangeFeed itemChangeFeed, ItemResponseCache itemResponseCache,
+                        ItemPriceStatistics itemPriceStatistics, ItemPriceRangePager itemPriceRangePager,
+                        @Value("${items.streaming.prefetch:256}") int streamingPrefetch,
+                        @Value("${items.batch.chunk-size:500}") int batchChunkSize,
+                        @Value("${items.batch.concurrency:4}") int batchConcurrency) {
         this.itemRepository = itemRepository;
+        this.itemCache = itemCache;
+        this.itemPager = itemPager;
+        this.itemUpdater = itemUpdater;
+        this.itemChangeFeed = itemChangeFeed;
+        this.itemResponseCache = itemResponseCache;
+        this.itemPriceStatistics = itemPriceStatistics;
+        this.itemPriceRangePager = itemPriceRangePager;
+        this.streamingPrefetch = streamingPrefetch;
+        this.batchChunkSize = batchChunkSize;
+        this.batchConcurrency = batchConcurrency;
     }
 
+    /**
+     * The items are rendered as a single JSON array, which the encoder would buffer anyway.
+     * Buffering them here already allows for an ETag over the whole listing.
+     * JSON listings are served from the {@link ItemResponseCache} if it is enabled.
+     *
+     * @param request optionally carrying an If-None-Match header
+     * @return 200 + all items, 304 without a body if the client's copy is still up to date
+     */
     Mono<ServerResponse> getAll(ServerRequest request) {
+        if (isServedFromResponseCache(request)) {
+            return itemResponseCache.get(ItemResponseCache.listingKey(ALL_ITEMS_LISTING), itemRepository.findAll()
+                    .collectList()
+                    .map(items -> itemResponseCache.encode(items, ItemETags.of(items), Collections.emptyMap())))
+                    .flatMap(response -> writeEncoded(request, response));
+        }
+        return itemRepository.findAll()
+                .collectList()
+                .flatMap(items -> ServerResponse.ok()
+                        .contentType(negotiateItemMediaType(request))
+                        .eTag(ItemETags.of(items)) // Matching If-None-Match headers are answered with 304 on write
+                        .body(fromValue(items)));
+    }
+
+    /**
+     * Streaming variant of {@link #getAll(ServerRequest)} for NDJSON and stream+json clients:
+     * Items are written one by one as they arrive from the database.
+     * <p>
+     * The MongoDB driver sizes each cursor batch by the outstanding downstream demand.
+     * Capping that demand at the configured prefetch keeps a slow client from making
+     * the server fetch (and buffer) large parts of the collection up front.
+     *
+     * @param request accepting application/x-ndjson or application/stream+json
+     * @return 200 + a stream of all items
+     */
+    Mono<ServerResponse> streamAll(ServerRequest request) {
         return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(itemRepository.findAll(), Item.class);
+                .contentType(negotiateItemsMediaType(request))
+                .body(itemRepository.findAll().limitRate(streamingPrefetch), Item.class);
+    }
+
+    /**
+     * Variant of {@link #getAll(ServerRequest)} returning only the requested fields of each item.
+     * The projection is pushed down to MongoDB, so unrequested fields are neither read nor transferred.
+     * Streamed like {@link #streamAll(ServerRequest)} if the client accepts NDJSON or stream+json only.
+     *
+     * @param request containing the comma separated field names (fields), e.g. id,price
+     * @return 200 + the projected items, 400 for unknown fields
+     */
+    Mono<ServerResponse> getAllProjected(ServerRequest request) {
+        return Mono.fromCallable(() -> ItemProjection.of(request.queryParam("fields").orElse("")))
+                .flatMap(projection -> ServerResponse.ok()
+                        .contentType(negotiateItemsMediaType(request))
+                        .body(itemRepository.findAllWithFields(projection.getFields())
+                                .limitRate(streamingPrefetch)
+                                .map(projection::apply), PROJECTED_ITEM_TYPE))
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
+    }
+
+    /**
+     * Multi-get variant of {@link #getOne(ServerRequest)}: Loads all requested items with a single database query.
+     * Ids are passed as comma separated list and/or repeated parameter, duplicates are ignored.
+     * Unknown ids are left out, so callers can tell them by comparing the returned ids to the requested ones.
+     * Note that Netty rejects request lines above 4 KB, i.e. roughly 150 ObjectIds.
+     *
+     * @param request containing the ids of the items (ids), at most {@value #MAX_IDS_PER_REQUEST},
+     *                and optionally the comma separated field names to return (fields), e.g. id,price
+     * @return 200 + the found (and projected) items in request order, 400 for no or too many ids or unknown fields
+     */
+    Mono<ServerResponse> getMany(ServerRequest request) {
+        List<String> itemIds = request.queryParams().getOrDefault("ids", Collections.emptyList()).stream()
+                .flatMap(ids -> Arrays.stream(ids.split(",")))
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (itemIds.isEmpty() || itemIds.size() > MAX_IDS_PER_REQUEST) {
+            return ServerResponse.badRequest().build();
+        }
+        return Mono.fromCallable(() -> request.queryParam("fields").map(ItemProjection::of))
+                .flatMap(projection -> itemRepository.findAllById(itemIds)
+                        .collectMap(Item::getId)
+                        // The database returns the items in its own order
+                        .map(itemsById -> itemIds.stream()
+                                .map(itemsById::get)
+                                .filter(Objects::nonNull)
+                                .map(item -> projection.<Object>map(fields -> fields.apply(item)).orElse(item))
+                                .collect(Collectors.toList())))
+                .flatMap(items -> ServerResponse.ok()
+                        .contentType(negotiateItemMediaType(request))
+                        .body(fromValue(items)))
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
+    }
+
+    /**
+     * Searches items by their description. Supported modes:
+     * <ul>
+     *     <li>exact (default): description equals the query</li>
+     *     <li>prefix: description starts with the query (case sensitive)</li>
+     *     <li>text: full text search on the description's words</li>
+     * </ul>
+     * All modes are backed by indexes, see {@link ItemIndexInitializer}. Results are streamed
+     * if the client accepts NDJSON or stream+json only.
+     *
+     * @param request containing the query (q) and an optional search mode (mode)
+     * @return 200 + the matching items, 400 for a missing query or an unknown mode
+     */
+    Mono<ServerResponse> search(ServerRequest request) {
+        Optional<String> query = request.queryParam("q").filter(q -> !q.isEmpty());
+        Optional<SearchMode> searchMode = SearchMode.of(request.queryParam("mode").orElse(SearchMode.EXACT.name()));
+        if (!query.isPresent() || !searchMode.isPresent()) {
+            return ServerResponse.badRequest().build();
+        }
+        Flux<Item> matchingItems;
+        switch (searchMode.get()) {
+            case PREFIX:
+                matchingItems = itemRepository.findByDescriptionStartingWith(query.get());
+                break;
+            case TEXT:
+                matchingItems = itemRepository.findAllBy(TextCriteria.forDefaultLanguage().matching(query.get()));
+                break;
+            default:
+                matchingItems = itemRepository.findByDescription(query.get());
+        }
+        return ServerResponse.ok()
+                .contentType(negotiateItemsMediaType(request))
+                .body(matchingItems.limitRate(streamingPrefetch), Item.class);
+    }
+
+    /**
+     * Price statistics over all items, or those whose description starts with the query.
+     * Computed by the database, so the response is small and fast no matter how many items there are.
+     *
+     * @param request containing an optional description prefix (q), the comma separated percentiles
+     *                (percentiles, default {@value #DEFAULT_PERCENTILES}, at most
+     *                {@value ItemPriceStatistics#MAX_PERCENTILES} different ones) and the number of histogram buckets
+     *                (buckets, default {@value #DEFAULT_BUCKETS})
+     * @return 200 + count, min, max, mean, percentiles and histogram of the prices, 400 for invalid parameters
+     */
+    Mono<ServerResponse> stats(ServerRequest request) {
+        return Mono.fromCallable(() -> Arrays.stream(request.queryParam("percentiles").orElse(DEFAULT_PERCENTILES)
+                .split(","))
+                .map(String::trim)
+                .map(Double::valueOf)
+                .collect(Collectors.toList()))
+                .flatMap(percentiles -> itemPriceStatistics.of(request.queryParam("q").orElse(null), percentiles,
+                        Integer.parseInt(request.queryParam("buckets").orElse(DEFAULT_BUCKETS))))
+                .flatMap(stats -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(fromValue(stats)))
+                // NumberFormatException is an IllegalArgumentException as well
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
+    }
+
+    /**
+     * Items in a price range, cheapest first. Streamed from the price index like {@link #streamAll(ServerRequest)}
+     * if the client accepts NDJSON or stream+json only.
+     *
+     * @param request containing the optional lowest (min) and highest (max) price, both inclusive
+     * @return 200 + the items in price order, 400 for invalid prices
+     */
+    Mono<ServerResponse> getByPrice(ServerRequest request) {
+        return Mono.fromCallable(() -> itemPriceRangePager.getRange(priceParam(request, "min"),
+                priceParam(request, "max")))
+                .flatMap(items -> ServerResponse.ok()
+                        .contentType(negotiateItemsMediaType(request))
+                        .body(items.limitRate(streamingPrefetch), Item.class))
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
+    }
+
+    /**
+     * Keyset-paginated variant of {@link #getByPrice(ServerRequest)}: Deep pages are as cheap as the first one.
+     *
+     * @param request containing the page size, an optional continuation token from the previous page
+     *                and the optional price range (min, max)
+     * @return 200 + the page's items and a continuation token header if there are more, 400 for invalid parameters
+     */
+    Mono<ServerResponse> getPageByPrice(ServerRequest request) {
+        Optional<String> continuationToken = request.queryParam("continuationToken");
+        return Mono.fromCallable(() -> Integer.parseInt(request.queryParam("size").orElse("")))
+                .flatMap(size -> itemPriceRangePager.getPage(priceParam(request, "min"), priceParam(request, "max"),
+                        continuationToken.orElse(null), size))
+                .flatMap(page -> ServerResponse.ok()
+                        .contentType(negotiateItemMediaType(request))
+                        .headers(headers -> {
+                            if (page.hasNextPage()) {
+                                headers.set(ItemPage.CONTINUATION_TOKEN_HEADER, page.getContinuationToken());
+                            }
+                        })
+                        .body(fromValue(page.getItems())))
+                // NumberFormatException is an IllegalArgumentException as well
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
     }
 
+    /**
+     * Keyset-paginated variant of {@link #getAll(ServerRequest)}, selected by the presence of the size parameter
+     *
+     * @param request containing the page size and an optional continuation token from the previous page
+     * @return 200 + the page's items and a continuation token header if there are more, 400 for invalid parameters
+     */
+    Mono<ServerResponse> getPage(ServerRequest request) {
+        Optional<String> continuationToken = request.queryParam("continuationToken");
+        if (isServedFromResponseCache(request)) {
+            return Mono.fromCallable(() -> Integer.parseInt(request.queryParam("size").orElse("")))
+                    .flatMap(size -> itemResponseCache.get(
+                            ItemResponseCache.listingKey(size + ":" + continuationToken.orElse("")),
+                            itemPager.getPage(continuationToken.orElse(null), size)
+                                    .map(page -> itemResponseCache.encode(page.getItems(), null, page.hasNextPage()
+                                            ? Collections.singletonMap(ItemPage.CONTINUATION_TOKEN_HEADER,
+                                            page.getContinuationToken())
+                                            : Collections.emptyMap()))))
+                    .flatMap(response -> writeEncoded(request, response))
+                    .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
+        }
+        return Mono.fromCallable(() -> Integer.parseInt(request.queryParam("size").orElse("")))
+                .flatMap(size -> itemPager.getPage(continuationToken.orElse(null), size))
+                .flatMap(page -> ServerResponse.ok()
+                        .contentType(negotiateItemMediaType(request))
+                        .headers(headers -> {
+                            if (page.hasNextPage()) {
+                                headers.set(ItemPage.CONTINUATION_TOKEN_HEADER, page.getContinuationToken());
+                            }
+                        })
+                        .body(fromValue(page.getItems())))
+                // NumberFormatException is an IllegalArgumentException as well
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
+    }
+
+    /**
+     * JSON responses are served from the {@link ItemResponseCache} if it is enabled.
+     *
+     * @param request containing the item's id and optionally an If-None-Match header
+     * @return 200 + the item and its ETag, 304 without a body if the client's copy is still up to date, 404 otherwise
+     */
     Mono<ServerResponse> getOne(ServerRequest request) {
         String itemId = request.pathVariable(ITEM_ID_PATH_VARIABLE);
-        Mono<Item> itemMono = itemRepository.findById(itemId);
+        if (isServedFromResponseCache(request)) {
+            return itemResponseCache.get(ItemResponseCache.itemKey(itemId), itemCache.findById(itemId)
+                    .map(item -> itemResponseCache.encode(item, ItemETags.of(item), Collections.emptyMap())))
+                    .flatMap(response -> writeEncoded(request, response))
+                    .switchIfEmpty(notFoundMono);
+        }
+        Mono<Item> itemMono = itemCache.findById(itemId);
         return itemMono
                 .flatMap(item -> ServerResponse.ok()
-                        .contentType(MediaType.APPLICATION_JSON)
+                        .contentType(negotiateItemMediaType(request))
+                        .eTag(ItemETags.of(item))
                         .body(fromValue(item)))
                 .switchIfEmpty(notFoundMono);
     }
 
+    /**
+     * Variant of {@link #getOne(ServerRequest)} returning only the requested fields.
+     * The item itself comes from the cache, so it is projected in memory rather than in the database.
+     *
+     * @param request containing the item's id and the comma separated field names (fields)
+     * @return 200 + the projected item, 404 if there is no such item, 400 for unknown fields
+     */
+    Mono<ServerResponse> getOneProjected(ServerRequest request) {
+        String itemId = request.pathVariable(ITEM_ID_PATH_VARIABLE);
+        return Mono.fromCallable(() -> ItemProjection.of(request.queryParam("fields").orElse("")))
+                .flatMap(projection -> itemCache.findById(itemId)
+                        .flatMap(item -> ServerResponse.ok()
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .body(fromValue(projection.apply(item))))
+                        .switchIfEmpty(notFoundMono))
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
+    }
+
     /**
      * Changed behavior compared to v1: Don't return the actual created item,
      * return its location instead
@@ -54,12 +376,153 @@ public class ItemsHandler {
         return itemMono
                 // Save first so we can use the item's generated id value during response creation
                 .flatMap(item -> itemRepository.save(item))
+                .doOnNext(item -> {
+                    itemCache.put(item);
+                    itemResponseCache.evictItem(item.getId());
+                })
                 .flatMap(item -> ServerResponse.created(
                         URI.create(request.uri().toString() + "/" + item.getId()))
                         .contentType(MediaType.APPLICATION_JSON)
                         .build());
     }
 
+    /**
+     * Server-Sent Events for every change to the items collection, named by operation (insert, update, delete, ...).
+     * All clients share a single database change stream.
+     *
+     * @param request accepting text/event-stream
+     * @return 200 + an infinite stream of changes
+     */
+    Mono<ServerResponse> changes(ServerRequest request) {
+        Flux<ServerSentEvent<ItemChange>> events = itemChangeFeed.changes()
+                .map(change -> ServerSentEvent.builder(change)
+                        .event(change.getOperation())
+                        .build());
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(events, new ParameterizedTypeReference<ServerSentEvent<ItemChange>>() {
+                });
+    }
+
+    /**
+     * Item collections are rendered as a JSON array unless the client accepts streaming types only
+     */
+    private static MediaType negotiateItemsMediaType(ServerRequest request) {
+        List<MediaType> acceptedMediaTypes = request.headers().accept();
+        if (acceptedMediaTypes.isEmpty()
+                || acceptedMediaTypes.stream().anyMatch(MediaType.APPLICATION_JSON::isCompatibleWith)) {
+            return MediaType.APPLICATION_JSON;
+        }
+        return acceptedMediaTypes.stream().anyMatch(MediaType.APPLICATION_STREAM_JSON::equalsTypeAndSubtype)
+                ? MediaType.APPLICATION_STREAM_JSON
+                : CodecConfig.APPLICATION_NDJSON;
+    }
+
+    /**
+     * Single items and item lists are rendered as JSON unless the client prefers Smile
+     */
+    private static MediaType negotiateItemMediaType(ServerRequest request) {
+        List<MediaType> acceptedMediaTypes = new ArrayList<>(request.headers().accept());
+        MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+        return acceptedMediaTypes.stream()
+                .flatMap(accepted -> ITEM_MEDIA_TYPES.stream().filter(accepted::isCompatibleWith))
+                .findFirst()
+                .orElse(MediaType.APPLICATION_JSON);
+    }
+
+    private static Double priceParam(ServerRequest request, String name) {
+        return request.queryParam(name).map(Double::valueOf).orElse(null);
+    }
+
+    /**
+     * The cache holds JSON only, Smile responses are always serialized on the fly
+     */
+    private boolean isServedFromResponseCache(ServerRequest request) {
+        return itemResponseCache.isEnabled() && negotiateItemMediaType(request).equals(MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Writes the cached bytes as they are, gzip compressed if the client accepts it
+     */
+    private static Mono<ServerResponse> writeEncoded(ServerRequest request, EncodedResponse response) {
+        boolean gzip = acceptsGzip(request.headers().header(HttpHeaders.ACCEPT_ENCODING));
+        ServerResponse.BodyBuilder responseBuilder = ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    response.getHeaders().forEach(headers::set);
+                    headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    if (gzip) {
+                        headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+                    }
+                });
+        if (response.hasETag()) {
+            responseBuilder.eTag(response.getETag()); // Matching If-None-Match headers are answered with 304 on write
+        }
+        return responseBuilder.body(fromDataBuffers(Mono.fromSupplier(() ->
+                DATA_BUFFER_FACTORY.wrap(gzip ? response.getGzippedBody() : response.getBody()))));
+    }
+
+    /**
+     * Tells from the Accept-Encoding header values whether gzip is acceptable: gzip (or x-gzip) is named with a
+     * quality above 0, or it isn't named and * is. A malformed quality counts as 0.
+     */
+    static boolean acceptsGzip(List<String> acceptEncodingHeaderValues) {
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String acceptEncoding : acceptEncodingHeaderValues) {
+            for (String codingWithParameters : acceptEncoding.split(",")) {
+                String[] codingAndParameters = codingWithParameters.split(";");
+                String coding = codingAndParameters[0].trim().toLowerCase(Locale.ROOT);
+                double quality = 1;
+                for (int i = 1; i < codingAndParameters.length; i++) {
+                    String parameter = codingAndParameters[i].trim().toLowerCase(Locale.ROOT);
+                    if (parameter.startsWith("q=")) {
+                        quality = quality(parameter.substring(2));
+                    }
+                }
+                if (coding.equals(GZIP) || coding.equals("x-" + GZIP)) {
+                    gzipQuality = quality;
+                } else if (coding.equals("*")) {
+                    wildcardQuality = quality;
+                }
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static double quality(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Bulk variant of {@link #createOne(ServerRequest)} for ingesting many items at once.
+     * <p>
+     * The body (a JSON array or NDJSON) is decoded as a stream and cut into chunks,
+     * each written with a single insertMany. A few chunks are written concurrently.
+     *
+     * @param request containing the items to be created
+     * @return 201 + the ids of the created items in request order
+     */
+    Mono<ServerResponse> createMany(ServerRequest request) {
+        Mono<List<String>> createdItemIdsMono = request.bodyToFlux(Item.class)
+                .buffer(batchChunkSize)
+                .flatMapSequential(itemRepository::insert, batchConcurrency)
+                .map(Item::getId)
+                .collectList()
+                .doOnNext(itemIds -> itemResponseCache.evictListings());
+        return createdItemIdsMono
+                .flatMap(itemIds -> ServerResponse.status(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(fromValue(itemIds)));
+    }
+
     /**
      * Changed behaviour compared to v1: Return 204 for deleted item.
      *
@@ -67,38 +530,46 @@ public class ItemsHandler {
      * @return 204 if ok
      */
     Mono<ServerResponse> deleteOne(ServerRequest request) {
-        return ServerResponse.noContent().build(itemRepository.deleteById(request.pathVariable(ITEM_ID_PATH_VARIABLE)));
+        String itemId = request.pathVariable(ITEM_ID_PATH_VARIABLE);
+        return ServerResponse.noContent().build(itemRepository.deleteById(itemId)
+                .doFinally(signalType -> {
+                    itemCache.evict(itemId);
+                    itemResponseCache.evictItem(itemId);
+                }));
     }
 
     /**
-     * Update an item:
-     * <ul>
-     *     <li>Load item from persistence layer</li>
-     *     <li>Update its values</li>
-     *     <li>Create response with new item in body</li>
-     * </ul>
+     * Update an item's description and price in a single atomic database operation,
+     * so concurrent updates can't overwrite each other with stale values.
+     * With an If-Match header, the item is only updated if it still matches one of the given ETags.
      *
-     * @param request containing the new item
-     * @return 200 if ok + the updated item, 404 otherwise
+     * @param request containing the new item and optionally an If-Match header
+     * @return 200 if ok + the updated item, 404 if there is no such item, 412 if the If-Match precondition failed
      */
     Mono<ServerResponse> updateOne(ServerRequest request) {
         String itemId = request.pathVariable(ITEM_ID_PATH_VARIABLE);
+        List<String> ifMatchHeaderValues = request.headers().header(HttpHeaders.IF_MATCH);
         Mono<Item> updatedItemMono = request
                 .bodyToMono(Item.class)
-                .flatMap(itemFromRequest ->
-                        itemRepository
-                                .findById(itemId)
-                                .flatMap(itemFromRepo -> {
-                                    itemFromRepo.setDescription(itemFromRequest.getDescription());
-                                    itemFromRepo.setPrice(itemFromRequest.getPrice());
-                                    return itemRepository.save(itemFromRepo);
-                                })
-                );
+                .flatMap(itemFromRequest -> itemUpdater.update(itemId, itemFromRequest, ifMatchHeaderValues));
         return updatedItemMono
                 .flatMap(item -> ServerResponse.ok()
                         .contentType(MediaType.APPLICATION_JSON)
+                        .eTag(ItemETags.of(item))
                         .body(fromValue(item)))
-                .switchIfEmpty(notFoundMono);
+                .switchIfEmpty(notFoundMono)
+                .onErrorResume(ItemModifiedException.class,
+                        e -> ServerResponse.status(HttpStatus.PRECONDITION_FAILED).build());
+
+    }
+
+    enum SearchMode {
+        EXACT, PREFIX, TEXT;
 
+        static Optional<SearchMode> of(String mode) {
+            return Arrays.stream(values())
+                    .filter(searchMode -> searchMode.name().equalsIgnoreCase(mode))
+                    .findFirst();
+        }
     }
 }
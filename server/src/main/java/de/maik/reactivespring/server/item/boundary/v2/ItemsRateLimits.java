@@ -0,0 +1,100 @@
+package de.maik.reactivespring.server.item.boundary.v2;
+
+import de.maik.reactivespring.server.item.control.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the v2 routes: Every client (by API key, or by remote address without one) gets
+ * its own token bucket per group of routes, see {@link RateLimiter}. Requests beyond the limit are answered
+ * with 429 and a Retry-After header right away, without reaching the handler.
+ * <p>
+ * Only API keys listed in items.rate-limit.api-keys identify a client. Anyone can make up a key,
+ * so requests with any other key are limited by their remote address like those without one.
+ * <p>
+ * Reads, single item writes and batch writes are limited separately (items.rate-limit.*),
+ * so a client bulk loading items doesn't use up its budget for reads.
+ */
+@Component
+public class ItemsRateLimits {
+
+    private static final HandlerFilterFunction<ServerResponse, ServerResponse> UNLIMITED =
+            (request, next) -> next.handle(request);
+    private boolean enabled;
+    private String apiKeyHeader;
+    private Set<String> apiKeys;
+    private RateLimiter readLimiter;
+    private RateLimiter writeLimiter;
+    private RateLimiter batchLimiter;
+
+    @Autowired
+    public ItemsRateLimits(@Value("${items.rate-limit.enabled:false}") boolean enabled,
+                           @Value("${items.rate-limit.api-key-header:X-API-Key}") String apiKeyHeader,
+                           @Value("${items.rate-limit.api-keys:}") String[] apiKeys,
+                           @Value("${items.rate-limit.maximum-clients:100000}") long maximumClients,
+                           @Value("${items.rate-limit.reads.permits-per-second:1000}") double readsPerSecond,
+                           @Value("${items.rate-limit.reads.burst:2000}") int readBurst,
+                           @Value("${items.rate-limit.writes.permits-per-second:100}") double writesPerSecond,
+                           @Value("${items.rate-limit.writes.burst:200}") int writeBurst,
+                           @Value("${items.rate-limit.batch.permits-per-second:1}") double batchesPerSecond,
+                           @Value("${items.rate-limit.batch.burst:5}") int batchBurst) {
+        this.enabled = enabled;
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKeys = new HashSet<>(Arrays.asList(apiKeys));
+        this.readLimiter = new RateLimiter(readsPerSecond, readBurst, maximumClients);
+        this.writeLimiter = new RateLimiter(writesPerSecond, writeBurst, maximumClients);
+        this.batchLimiter = new RateLimiter(batchesPerSecond, batchBurst, maximumClients);
+    }
+
+    HandlerFilterFunction<ServerResponse, ServerResponse> reads() {
+        return limitedBy(readLimiter);
+    }
+
+    HandlerFilterFunction<ServerResponse, ServerResponse> writes() {
+        return limitedBy(writeLimiter);
+    }
+
+    HandlerFilterFunction<ServerResponse, ServerResponse> batchWrites() {
+        return limitedBy(batchLimiter);
+    }
+
+    private HandlerFilterFunction<ServerResponse, ServerResponse> limitedBy(RateLimiter rateLimiter) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        return (request, next) -> {
+            long retryAfterNanos = rateLimiter.tryAcquire(clientKeyOf(request));
+            if (retryAfterNanos == 0) {
+                return next.handle(request);
+            }
+            // Retry-After is in whole seconds, rounded up so the client doesn't come back too early
+            return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(
+                            (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)))
+                    .build();
+        };
+    }
+
+    private String clientKeyOf(ServerRequest request) {
+        String apiKey = request.headers().asHttpHeaders().getFirst(apiKeyHeader);
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        return request.remoteAddress()
+                .map(InetSocketAddress::getAddress)
+                .map(address -> "address:" + address.getHostAddress())
+                .orElse("unknown");
+    }
+}
@@ -1,5 +1,6 @@
 package de.maik.reactivespring.server.item.boundary.v2;
 
+import de.maik.reactivespring.server.config.CodecConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
@@ -12,6 +13,7 @@ import static org.springframework.web.reactive.function.server.RequestPredicates
 import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
 import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
 import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
 
 /**
  * Functional-style REST Router for the Items API
@@ -21,15 +23,62 @@ public class ItemsRouter {
 
     private static final String ITEMS_ENDPOINT_V2 = "/v2/items";
     private static final String ITEM_ID_PATH_VARIABLE = "/{itemId}";
+    private static final String BATCH_PATH = "/batch";
+    private static final String SEARCH_PATH = "/search";
+    private static final String CHANGES_PATH = "/changes";
+    private static final String STATS_PATH = "/stats";
+    private static final String BY_PRICE_PATH = "/by-price";
+    // Single item and item list responses, see CodecConfig for Smile
+    private static final MediaType[] ITEM_MEDIA_TYPES = {MediaType.APPLICATION_JSON, CodecConfig.APPLICATION_SMILE};
 
     @Bean
-    public RouterFunction<ServerResponse> itemsRoute(ItemsHandler itemsHandler) {
+    public RouterFunction<ServerResponse> itemsRoute(ItemsHandler itemsHandler, ItemsRateLimits itemsRateLimits) {
+        // Reads, single item writes and batch writes are rate limited separately, see ItemsRateLimits
+        return readRoutes(itemsHandler).filter(itemsRateLimits.reads())
+                .and(RouterFunctions.route(POST(ITEMS_ENDPOINT_V2 + BATCH_PATH).and(accept(MediaType.APPLICATION_JSON))
+                        , itemsHandler::createMany)
+                        .filter(itemsRateLimits.batchWrites()))
+                .and(writeRoutes(itemsHandler).filter(itemsRateLimits.writes()));
+    }
+
+    private RouterFunction<ServerResponse> readRoutes(ItemsHandler itemsHandler) {
         return RouterFunctions
-                .route(GET(ITEMS_ENDPOINT_V2).and(accept(MediaType.APPLICATION_JSON))
+                .route(GET(ITEMS_ENDPOINT_V2).and(queryParam("size", size -> true)).and(accept(ITEM_MEDIA_TYPES))
+                        , itemsHandler::getPage)
+                // Multi-get goes before the projection of all items, as it takes fields as well
+                .andRoute(GET(ITEMS_ENDPOINT_V2).and(queryParam("ids", ids -> true)).and(accept(ITEM_MEDIA_TYPES))
+                        , itemsHandler::getMany)
+                .andRoute(GET(ITEMS_ENDPOINT_V2).and(queryParam("fields", fields -> true))
+                                .and(accept(MediaType.APPLICATION_JSON, MediaType.APPLICATION_STREAM_JSON, CodecConfig.APPLICATION_NDJSON))
+                        , itemsHandler::getAllProjected)
+                .andRoute(GET(ITEMS_ENDPOINT_V2).and(accept(ITEM_MEDIA_TYPES))
                         , itemsHandler::getAll)
-                .andRoute(GET(ITEMS_ENDPOINT_V2 + ITEM_ID_PATH_VARIABLE).and(accept(MediaType.APPLICATION_JSON))
-                        , itemsHandler::getOne)
-                .andRoute(POST(ITEMS_ENDPOINT_V2).and(accept(MediaType.APPLICATION_JSON))
+                .andRoute(GET(ITEMS_ENDPOINT_V2).and(accept(MediaType.APPLICATION_STREAM_JSON, CodecConfig.APPLICATION_NDJSON))
+                        , itemsHandler::streamAll)
+                // Search, changes, stats and price ranges need to go before the single item route, which would take them for an id otherwise
+                .andRoute(GET(ITEMS_ENDPOINT_V2 + SEARCH_PATH)
+                                .and(accept(MediaType.APPLICATION_JSON, MediaType.APPLICATION_STREAM_JSON, CodecConfig.APPLICATION_NDJSON))
+                        , itemsHandler::search)
+                .andRoute(GET(ITEMS_ENDPOINT_V2 + CHANGES_PATH).and(accept(MediaType.TEXT_EVENT_STREAM))
+                        , itemsHandler::changes)
+                .andRoute(GET(ITEMS_ENDPOINT_V2 + STATS_PATH).and(accept(MediaType.APPLICATION_JSON))
+                        , itemsHandler::stats)
+                .andRoute(GET(ITEMS_ENDPOINT_V2 + BY_PRICE_PATH).and(queryParam("size", size -> true))
+                                .and(accept(ITEM_MEDIA_TYPES))
+                        , itemsHandler::getPageByPrice)
+                .andRoute(GET(ITEMS_ENDPOINT_V2 + BY_PRICE_PATH)
+                                .and(accept(MediaType.APPLICATION_JSON, MediaType.APPLICATION_STREAM_JSON, CodecConfig.APPLICATION_NDJSON))
+                        , itemsHandler::getByPrice)
+                .andRoute(GET(ITEMS_ENDPOINT_V2 + ITEM_ID_PATH_VARIABLE).and(queryParam("fields", fields -> true))
+                                .and(accept(MediaType.APPLICATION_JSON))
+                        , itemsHandler::getOneProjected)
+                .andRoute(GET(ITEMS_ENDPOINT_V2 + ITEM_ID_PATH_VARIABLE).and(accept(ITEM_MEDIA_TYPES))
+                        , itemsHandler::getOne);
+    }
+
+    private RouterFunction<ServerResponse> writeRoutes(ItemsHandler itemsHandler) {
+        return RouterFunctions
+                .route(POST(ITEMS_ENDPOINT_V2).and(accept(MediaType.APPLICATION_JSON))
                         , itemsHandler::createOne)
                 .andRoute(DELETE(ITEMS_ENDPOINT_V2 + ITEM_ID_PATH_VARIABLE).and(accept(MediaType.APPLICATION_JSON))
                         , itemsHandler::deleteOne)
@@ -0,0 +1,25 @@
+package de.maik.reactivespring.server.item.control;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * A JSON response body serialized once, in plain and gzip compressed form,
+ * plus the headers to send along with it. See {@link ItemResponseCache}.
+ */
+@Value
+public class EncodedResponse {
+    byte[] body;
+    byte[] gzippedBody;
+    String eTag;
+    Map<String, String> headers;
+
+    public boolean hasETag() {
+        return eTag != null;
+    }
+
+    int size() {
+        return body.length + gzippedBody.length;
+    }
+}
@@ -0,0 +1,88 @@
+package de.maik.reactivespring.server.item.control;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded in-process read-through cache in front of {@link ItemRepository#findById(Object)}.
+ * <p>
+ * Entries are evicted by size and by age, so items changed behind the API's back
+ * (e.g. directly in MongoDB) are served stale for at most the configured TTL.
+ * Writes going through the API are expected to call {@link #put(Item)} or {@link #evict(String)}.
+ * An item loaded while such a write to the same id happens is handed out, but not cached, so it can't outlive
+ * the write. Writes to other items don't affect it.
+ * <p>
+ * Hit, miss and eviction counts are exposed as cache metrics named {@value #CACHE_NAME}.
+ */
+@Component
+public class ItemCache {
+
+    static final String CACHE_NAME = "items";
+    private ItemRepository itemRepository;
+    private Cache<String, Item> cache;
+    private ConcurrentHashMap<String, Object> loadsInFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ItemCache(ItemRepository itemRepository, MeterRegistry meterRegistry,
+                     @Value("${items.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${items.cache.expire-after-write:60s}") Duration expireAfterWrite) {
+        this.itemRepository = itemRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached item or loads it from the repository on a miss.
+     * Unknown ids are not cached, so a later insert becomes visible immediately.
+     */
+    public Mono<Item> findById(String itemId) {
+        return Mono.defer(() -> {
+            Item cachedItem = cache.getIfPresent(itemId);
+            if (cachedItem != null) {
+                return Mono.just(cachedItem);
+            }
+            // A write to the item withdraws the token, a later load of the same item replaces it
+            Object load = new Object();
+            loadsInFlight.put(itemId, load);
+            return itemRepository.findById(itemId)
+                    // Checked under the entry's lock: A write withdrawing the token after the check puts or evicts after this
+                    .doOnNext(loadedItem -> cache.asMap().compute(itemId, (id, currentItem) ->
+                            loadsInFlight.get(itemId) == load ? loadedItem : currentItem))
+                    .doFinally(signal -> loadsInFlight.remove(itemId, load));
+        });
+    }
+
+    public void put(Item item) {
+        loadsInFlight.remove(item.getId());
+        cache.put(item.getId(), item);
+    }
+
+    public void evict(String itemId) {
+        loadsInFlight.remove(itemId);
+        cache.invalidate(itemId);
+    }
+
+    public void evictAll() {
+        loadsInFlight.clear();
+        cache.invalidateAll();
+    }
+
+    Cache<String, Item> nativeCache() {
+        return cache;
+    }
+}
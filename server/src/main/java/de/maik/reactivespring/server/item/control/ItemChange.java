@@ -0,0 +1,20 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import lombok.Value;
+
+/**
+ * A single change to the items collection as published by the {@link ItemChangeFeed}
+ */
+@Value
+public class ItemChange {
+    /**
+     * MongoDB operation type, e.g. insert, update, replace or delete
+     */
+    String operation;
+    String itemId;
+    /**
+     * The item after the change, null for deletions
+     */
+    Item item;
+}
@@ -0,0 +1,71 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+/**
+ * Live feed of changes to the items collection, backed by a MongoDB change stream
+ * (which requires MongoDB to run as a replica set).
+ * <p>
+ * The change stream is a hot publisher shared by all subscribers: It is opened for the first
+ * subscriber and closed again when the last one leaves. Every subscriber gets its own bounded
+ * buffer dropping the oldest changes on overflow, so a slow subscriber misses changes instead of
+ * holding back everybody else.
+ */
+@Component
+@Slf4j
+public class ItemChangeFeed {
+
+    private Flux<ItemChange> sharedChanges;
+    private int subscriberBufferSize;
+
+    @Autowired
+    public ItemChangeFeed(ReactiveMongoOperations mongoOperations,
+                          @Value("${items.changes.subscriber-buffer-size:256}") int subscriberBufferSize) {
+        this(mongoOperations
+                        .changeStream(mongoOperations.getCollectionName(Item.class),
+                                ChangeStreamOptions.builder().returnFullDocumentOnUpdate().build(), Item.class)
+                        .map(ItemChangeFeed::toItemChange),
+                subscriberBufferSize);
+    }
+
+    ItemChangeFeed(Flux<ItemChange> changes, int subscriberBufferSize) {
+        this.sharedChanges = changes
+                .doOnSubscribe(subscription -> log.info("Opening item change stream"))
+                .doOnCancel(() -> log.info("Closing item change stream, no subscribers left"))
+                .publish()
+                .refCount();
+        this.subscriberBufferSize = subscriberBufferSize;
+    }
+
+    public Flux<ItemChange> changes() {
+        return sharedChanges
+                .onBackpressureBuffer(subscriberBufferSize,
+                        droppedChange -> log.debug("Dropped change for slow subscriber: " + droppedChange),
+                        BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    private static ItemChange toItemChange(ChangeStreamEvent<Item> event) {
+        BsonValue itemId = event.getRaw().getDocumentKey() == null ? null : event.getRaw().getDocumentKey().get("_id");
+        return new ItemChange(
+                event.getOperationType() == null ? "unknown" : event.getOperationType().getValue(),
+                itemId == null ? null : toIdString(itemId),
+                event.getBody());
+    }
+
+    private static String toIdString(BsonValue itemId) {
+        if (itemId.isObjectId()) {
+            return itemId.asObjectId().getValue().toHexString();
+        }
+        return itemId.isString() ? itemId.asString().getValue() : itemId.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Strong entity tags derived from item contents. Items carry no version, so the tag is a hash
+ * over all fields: It changes with every modification, no matter which API (or tool) made it.
+ */
+public final class ItemETags {
+
+    private static final String ANY = "*";
+
+    private ItemETags() {
+    }
+
+    public static String of(Item item) {
+        return quote(DigestUtils.md5DigestAsHex(contentOf(item).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return a tag over all items in the given order, so both changed items and a changed order are detected
+     */
+    public static String of(List<Item> items) {
+        StringBuilder contents = new StringBuilder();
+        items.forEach(item -> contents.append(contentOf(item)).append('\n'));
+        return quote(DigestUtils.md5DigestAsHex(contents.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Strong comparison as required for If-Match
+     *
+     * @param ifMatchHeaderValues values of the If-Match header, may list several tags each
+     * @param eTag                the current tag of the resource
+     */
+    public static boolean matches(List<String> ifMatchHeaderValues, String eTag) {
+        return ifMatchHeaderValues.stream()
+                .flatMap(headerValue -> Arrays.stream(headerValue.split(",")))
+                .map(String::trim)
+                .anyMatch(tag -> tag.equals(ANY) || tag.equals(eTag));
+    }
+
+    private static String contentOf(Item item) {
+        return item.getId() + '\u0000' + item.getDescription() + '\u0000' + item.getPrice();
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
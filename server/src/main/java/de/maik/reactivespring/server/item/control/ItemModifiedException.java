@@ -0,0 +1,11 @@
+package de.maik.reactivespring.server.item.control;
+
+/**
+ * Signals that an item no longer matches the version a conditional write was based on
+ */
+public class ItemModifiedException extends RuntimeException {
+
+    public ItemModifiedException(String itemId) {
+        super("Item " + itemId + " has been modified in the meantime");
+    }
+}
@@ -0,0 +1,22 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A single page of items plus the opaque token needed to fetch the next one.
+ * The token is null if there are no further pages.
+ */
+@Value
+public class ItemPage {
+    public static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+
+    List<Item> items;
+    String continuationToken;
+
+    public boolean hasNextPage() {
+        return continuationToken != null;
+    }
+}
@@ -0,0 +1,77 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset (a.k.a. cursor) pagination over all items, ordered by id.
+ * <p>
+ * In contrast to skip/limit paging every page is an index range scan on _id,
+ * so fetching page 10.000 is as cheap as fetching the first one.
+ */
+@Component
+public class ItemPager {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+    private ItemRepository itemRepository;
+
+    @Autowired
+    public ItemPager(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    /**
+     * @param continuationToken token of the previous page, null for the first page
+     * @param pageSize          number of items per page
+     * @return the requested page, or an {@link IllegalArgumentException} for an invalid token or page size
+     */
+    public Mono<ItemPage> getPage(String continuationToken, int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException(
+                    "Page size must be between 1 and " + MAX_PAGE_SIZE + ", was " + pageSize));
+        }
+        // Fetch one item more than requested to find out whether there is a next page
+        Flux<Item> items = continuationToken == null
+                ? itemRepository.findAllByOrderByIdAsc(PageRequest.of(0, pageSize + 1))
+                : Mono.fromCallable(() -> decode(continuationToken))
+                .flatMapMany(lastId -> findAfter(lastId, PageRequest.of(0, pageSize + 1, Sort.by("id"))));
+        return items
+                .collectList()
+                .map(itemList -> toPage(itemList, pageSize));
+    }
+
+    private Flux<Item> findAfter(String lastId, Pageable pageable) {
+        return ObjectId.isValid(lastId)
+                ? itemRepository.findByIdGreaterThanOrderByIdAsc(new ObjectId(lastId), pageable)
+                : itemRepository.findByStringIdGreaterThan(lastId, pageable);
+    }
+
+    private ItemPage toPage(List<Item> items, int pageSize) {
+        if (items.size() <= pageSize) {
+            return new ItemPage(items, null);
+        }
+        List<Item> pageItems = items.subList(0, pageSize);
+        return new ItemPage(pageItems, encode(pageItems.get(pageSize - 1).getId()));
+    }
+
+    static String encode(String itemId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(itemId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String continuationToken) {
+        // Throws an IllegalArgumentException for malformed tokens
+        return new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import de.maik.reactivespring.server.item.initializers.ItemIndexInitializer;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Items within a price range in price order, either streamed as a whole or in keyset paginated pages.
+ * <p>
+ * Like {@link ItemPager}, pages continue after the (price, id) of the previous page's last item rather than
+ * skipping over the items before, so every page is a range scan on the price index
+ * (see {@link ItemIndexInitializer}) no matter how deep it is.
+ */
+@Component
+public class ItemPriceRangePager {
+
+    private static final Sort PRICE_ORDER = Sort.by("price", "id");
+    private ItemRepository itemRepository;
+
+    @Autowired
+    public ItemPriceRangePager(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    /**
+     * @param minPrice lowest price (inclusive), null for no lower bound
+     * @param maxPrice highest price (inclusive), null for no upper bound
+     * @return all items in the range
+     * @throws IllegalArgumentException right away if the range is empty, so callers can reject it before streaming
+     */
+    public Flux<Item> getRange(Double minPrice, Double maxPrice) {
+        return itemRepository.findByPriceBetweenOrderByPriceAscIdAsc(toRange(minPrice, maxPrice));
+    }
+
+    /**
+     * @param continuationToken token of the previous page, null for the first page
+     * @return the requested page, or an {@link IllegalArgumentException} for an invalid range, token or page size
+     */
+    public Mono<ItemPage> getPage(Double minPrice, Double maxPrice, String continuationToken, int pageSize) {
+        if (pageSize < 1 || pageSize > ItemPager.MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException(
+                    "Page size must be between 1 and " + ItemPager.MAX_PAGE_SIZE + ", was " + pageSize));
+        }
+        // Fetch one item more than requested to find out whether there is a next page
+        Pageable pageable = PageRequest.of(0, pageSize + 1, PRICE_ORDER);
+        return Mono.fromCallable(() -> toRange(minPrice, maxPrice))
+                .flatMapMany(range -> continuationToken == null
+                        ? itemRepository.findByPriceBetweenOrderByPriceAscIdAsc(range, PageRequest.of(0, pageSize + 1))
+                        : findAfter(ItemPager.decode(continuationToken), maxPrice, pageable))
+                .collectList()
+                .map(items -> toPage(items, pageSize));
+    }
+
+    /**
+     * @param lastPriceAndId price and id of the previous page's last item, separated by a colon
+     */
+    private Flux<Item> findAfter(String lastPriceAndId, Double maxPrice, Pageable pageable) {
+        int separator = lastPriceAndId.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed continuation token");
+        }
+        double lastPrice = Double.parseDouble(lastPriceAndId.substring(0, separator));
+        String lastId = lastPriceAndId.substring(separator + 1);
+        double upperBound = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+        return ObjectId.isValid(lastId)
+                ? itemRepository.findByPriceAfterObjectId(lastPrice, new ObjectId(lastId), upperBound, pageable)
+                : itemRepository.findByPriceAfterStringId(lastPrice, lastId, upperBound, pageable);
+    }
+
+    private ItemPage toPage(List<Item> items, int pageSize) {
+        if (items.size() <= pageSize) {
+            return new ItemPage(items, null);
+        }
+        List<Item> pageItems = items.subList(0, pageSize);
+        Item lastItem = pageItems.get(pageSize - 1);
+        return new ItemPage(pageItems, ItemPager.encode(lastItem.getPrice() + ":" + lastItem.getId()));
+    }
+
+    private static Range<Double> toRange(Double minPrice, Double maxPrice) {
+        if ((minPrice != null && minPrice.isNaN()) || (maxPrice != null && maxPrice.isNaN())) {
+            throw new IllegalArgumentException("Prices must be numbers");
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("Minimum price must not exceed maximum price");
+        }
+        // Infinite rather than unbounded, so there is always a criterion on price for the index to serve
+        return Range.closed(minPrice == null ? Double.NEGATIVE_INFINITY : minPrice,
+                maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice);
+    }
+}
@@ -0,0 +1,173 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.initializers.ItemIndexInitializer;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.bucket;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregationOptions;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.skip;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Computes {@link PriceStats} inside MongoDB with the aggregation framework, so only the results
+ * rather than the items are transferred, no matter how many items there are.
+ * <p>
+ * Count, min, max and mean come from a single $group stage, the histogram from a $bucket stage over
+ * equal-width price ranges between min and max. MongoDB (before 7.0) has no percentile operator,
+ * so each percentile is the item at its nearest rank in price order. All of them are picked from a single
+ * pass in price order (along the price index, see {@link ItemIndexInitializer}), which $skip and $limit
+ * narrow down to the prices between the lowest and the highest rank asked for. Histogram and percentiles
+ * run concurrently.
+ */
+@Component
+public class ItemPriceStatistics {
+
+    public static final int MAX_BUCKETS = 100;
+    public static final int MAX_PERCENTILES = 10;
+    private static final String PRICE = "price";
+    private ReactiveMongoOperations mongoOperations;
+
+    @Autowired
+    public ItemPriceStatistics(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * @param descriptionPrefix only include items whose description starts with it (case sensitive), may be null
+     * @param percentiles       the percentiles to compute, each greater than 0 and at most 100,
+     *                          at most {@value #MAX_PERCENTILES} different ones
+     * @param buckets           number of histogram buckets, at most {@value #MAX_BUCKETS}
+     * @return the statistics, or an {@link IllegalArgumentException} for invalid percentiles or buckets
+     */
+    public Mono<PriceStats> of(String descriptionPrefix, List<Double> percentiles, int buckets) {
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            return Mono.error(new IllegalArgumentException("Buckets must be between 1 and " + MAX_BUCKETS));
+        }
+        List<Double> distinctPercentiles = percentiles.stream().distinct().collect(Collectors.toList());
+        if (distinctPercentiles.size() > MAX_PERCENTILES) {
+            return Mono.error(new IllegalArgumentException("At most " + MAX_PERCENTILES + " percentiles are allowed"));
+        }
+        if (distinctPercentiles.stream().anyMatch(percentile -> !(percentile > 0 && percentile <= 100))) {
+            return Mono.error(new IllegalArgumentException("Percentiles must be greater than 0 and at most 100"));
+        }
+        Criteria criteria = descriptionPrefix == null || descriptionPrefix.isEmpty()
+                ? new Criteria()
+                // Anchored, case sensitive regexes are answered from the description index
+                : where("description").regex("^" + Pattern.quote(descriptionPrefix));
+        return aggregate(match(criteria), group().count().as("count")
+                .min(PRICE).as("min")
+                .max(PRICE).as("max")
+                .avg(PRICE).as("mean"))
+                .next()
+                .flatMap(summary -> {
+                    long count = ((Number) summary.get("count")).longValue();
+                    double min = ((Number) summary.get("min")).doubleValue();
+                    double max = ((Number) summary.get("max")).doubleValue();
+                    return Mono.zip(
+                            percentiles(criteria, count, distinctPercentiles),
+                            histogram(criteria, min, max, buckets),
+                            (percentileValues, histogram) -> new PriceStats(count, min, max,
+                                    ((Number) summary.get("mean")).doubleValue(), percentileValues, histogram));
+                })
+                .defaultIfEmpty(PriceStats.empty());
+    }
+
+    private Mono<Map<String, Double>> percentiles(Criteria criteria, long count, List<Double> percentiles) {
+        if (percentiles.isEmpty()) {
+            return Mono.just(new LinkedHashMap<>());
+        }
+        Set<Long> ranks = percentiles.stream()
+                .map(percentile -> nearestRank(percentile, count))
+                .collect(Collectors.toSet());
+        long lowestRank = Collections.min(ranks);
+        long highestRank = Collections.max(ranks);
+        return aggregate(match(criteria),
+                sort(Sort.Direction.ASC, PRICE),
+                skip(lowestRank),
+                limit(highestRank - lowestRank + 1),
+                project(PRICE).andExclude("_id"))
+                .index()
+                .filter(rankedItem -> ranks.contains(lowestRank + rankedItem.getT1()))
+                .collectMap(rankedItem -> lowestRank + rankedItem.getT1(),
+                        rankedItem -> ((Number) rankedItem.getT2().get(PRICE)).doubleValue())
+                .map(pricesByRank -> {
+                    Map<String, Double> percentileValues = new LinkedHashMap<>();
+                    for (Double percentile : percentiles) {
+                        percentileValues.put(nameOf(percentile), pricesByRank.get(nearestRank(percentile, count)));
+                    }
+                    return percentileValues;
+                });
+    }
+
+    /**
+     * The last boundary lies just above max, as $bucket's upper bounds are exclusive
+     */
+    private Mono<List<PriceStats.Bucket>> histogram(Criteria criteria, double min, double max, int buckets) {
+        double width = (max - min) / buckets;
+        List<Double> boundaries = new ArrayList<>();
+        for (int i = 0; i < buckets && (i == 0 || width > 0); i++) {
+            boundaries.add(min + i * width);
+        }
+        boundaries.add(Math.nextUp(max));
+        return aggregate(match(criteria), bucket(PRICE)
+                .withBoundaries(boundaries.toArray())
+                .andOutputCount().as("count"))
+                .collectMap(bucket -> ((Number) bucket.get("_id")).doubleValue(),
+                        bucket -> ((Number) bucket.get("count")).longValue())
+                .map(countsByLowerBound -> {
+                    // Empty buckets are left out by MongoDB
+                    List<PriceStats.Bucket> histogram = new ArrayList<>();
+                    for (int i = 0; i < boundaries.size() - 1; i++) {
+                        histogram.add(new PriceStats.Bucket(boundaries.get(i),
+                                i == boundaries.size() - 2 ? max : boundaries.get(i + 1),
+                                countsByLowerBound.getOrDefault(boundaries.get(i), 0L)));
+                    }
+                    return histogram;
+                });
+    }
+
+    /**
+     * Sorting filtered items by price can't use the price index and may exceed MongoDB's in-memory sort limit
+     */
+    private Flux<Document> aggregate(AggregationOperation... operations) {
+        return mongoOperations.aggregate(newAggregation(Item.class, operations)
+                .withOptions(newAggregationOptions().allowDiskUse(true).build()), Document.class);
+    }
+
+    /**
+     * @return the zero based nearest rank
+     */
+    private static long nearestRank(double percentile, long count) {
+        return Math.max((long) Math.ceil(percentile / 100 * count) - 1, 0);
+    }
+
+    private static String nameOf(double percentile) {
+        return "p" + (percentile == Math.rint(percentile)
+                ? String.valueOf((long) percentile)
+                : String.valueOf(percentile).replace('.', '_'));
+    }
+}
@@ -0,0 +1,55 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Subset of an item's fields requested by a client, e.g. "id,price"
+ */
+@Value
+public class ItemProjection {
+
+    private static final Map<String, Function<Item, Object>> FIELD_ACCESSORS = createFieldAccessors();
+
+    Set<String> fields;
+
+    /**
+     * @param fieldList comma separated field names
+     * @return the projection, or an {@link IllegalArgumentException} for unknown or missing fields
+     */
+    public static ItemProjection of(String fieldList) {
+        Set<String> fields = new LinkedHashSet<>();
+        for (String field : fieldList.split(",")) {
+            String trimmedField = field.trim();
+            if (!FIELD_ACCESSORS.containsKey(trimmedField)) {
+                throw new IllegalArgumentException("Unknown item field: " + trimmedField);
+            }
+            fields.add(trimmedField);
+        }
+        return new ItemProjection(Collections.unmodifiableSet(fields));
+    }
+
+    /**
+     * @return the selected fields of the item in the requested order, ready to be serialized
+     */
+    public Map<String, Object> apply(Item item) {
+        Map<String, Object> projectedItem = new LinkedHashMap<>(fields.size());
+        fields.forEach(field -> projectedItem.put(field, FIELD_ACCESSORS.get(field).apply(item)));
+        return projectedItem;
+    }
+
+    private static Map<String, Function<Item, Object>> createFieldAccessors() {
+        Map<String, Function<Item, Object>> fieldAccessors = new LinkedHashMap<>();
+        fieldAccessors.put("id", Item::getId);
+        fieldAccessors.put("description", Item::getDescription);
+        fieldAccessors.put("price", Item::getPrice);
+        return Collections.unmodifiableMap(fieldAccessors);
+    }
+}
@@ -0,0 +1,157 @@
+package de.maik.reactivespring.server.item.control;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Optional cache of already serialized JSON responses for single items and item listings.
+ * Hot reads are answered by writing the cached bytes as they are, skipping both JSON serialization
+ * and compression. Bounded by the total size of the cached bytes and by age, like {@link ItemCache}.
+ * <p>
+ * Any write evicts the written item and all listings, as a single item may show up on any page.
+ * Listings are kept in a separate, smaller cache, so evicting them doesn't walk all cached items.
+ * A response loaded while a write to the same item (or, for listings, any write) happens is handed out,
+ * but not cached, so it can't outlive the write.
+ * <p>
+ * Hit, miss and eviction counts are exposed as cache metrics named {@value #CACHE_NAME}
+ * and {@value #LISTINGS_CACHE_NAME}.
+ */
+@Component
+public class ItemResponseCache {
+
+    static final String CACHE_NAME = "item-responses";
+    static final String LISTINGS_CACHE_NAME = "item-listing-responses";
+    private static final String ITEM_KEY_PREFIX = "item:";
+    private static final String LISTING_KEY_PREFIX = "listing:";
+
+    private ObjectMapper objectMapper;
+    private boolean enabled;
+    private Cache<String, EncodedResponse> cache;
+    private Cache<String, EncodedResponse> listingsCache;
+    private ConcurrentHashMap<String, Object> loadsInFlight = new ConcurrentHashMap<>();
+    private AtomicLong listingWrites = new AtomicLong();
+
+    @Autowired
+    public ItemResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${items.response-cache.enabled:false}") boolean enabled,
+                             @Value("${items.response-cache.maximum-bytes:67108864}") long maximumBytes,
+                             @Value("${items.response-cache.maximum-listing-bytes:8388608}") long maximumListingBytes,
+                             @Value("${items.response-cache.expire-after-write:60s}") Duration expireAfterWrite) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.cache = newCache(maximumBytes, expireAfterWrite);
+        this.listingsCache = newCache(maximumListingBytes, expireAfterWrite);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, listingsCache, LISTINGS_CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static String itemKey(String itemId) {
+        return ITEM_KEY_PREFIX + itemId;
+    }
+
+    /**
+     * @param listing identifies the listing, e.g. a page by its size and continuation token
+     */
+    public static String listingKey(String listing) {
+        return LISTING_KEY_PREFIX + listing;
+    }
+
+    /**
+     * Returns the cached response or loads and caches it on a miss.
+     * Empty results (e.g. unknown ids) are not cached.
+     */
+    public Mono<EncodedResponse> get(String key, Mono<EncodedResponse> loader) {
+        return key.startsWith(LISTING_KEY_PREFIX) ? getListing(key, loader) : getItem(key, loader);
+    }
+
+    private Mono<EncodedResponse> getItem(String key, Mono<EncodedResponse> loader) {
+        return Mono.defer(() -> {
+            EncodedResponse cachedResponse = cache.getIfPresent(key);
+            if (cachedResponse != null) {
+                return Mono.just(cachedResponse);
+            }
+            // A write to the item withdraws the token, see ItemCache
+            Object load = new Object();
+            loadsInFlight.put(key, load);
+            return loader.doOnNext(response -> cache.asMap().compute(key, (k, currentResponse) ->
+                    loadsInFlight.get(key) == load ? response : currentResponse))
+                    .doFinally(signal -> loadsInFlight.remove(key, load));
+        });
+    }
+
+    private Mono<EncodedResponse> getListing(String key, Mono<EncodedResponse> loader) {
+        return Mono.defer(() -> {
+            EncodedResponse cachedResponse = listingsCache.getIfPresent(key);
+            if (cachedResponse != null) {
+                return Mono.just(cachedResponse);
+            }
+            long writesBeforeLoad = listingWrites.get();
+            // Checked under the entry's lock: A write counted after the check evicts after this
+            return loader.doOnNext(response -> listingsCache.asMap().compute(key, (k, currentResponse) ->
+                    listingWrites.get() == writesBeforeLoad ? response : currentResponse));
+        });
+    }
+
+    /**
+     * Serializes the body with the application's {@link ObjectMapper}, i.e. exactly as the JSON encoder would
+     *
+     * @param eTag    the response's ETag, may be null
+     * @param headers further headers of the response
+     */
+    public EncodedResponse encode(Object body, String eTag, Map<String, String> headers) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new EncodedResponse(json, gzip(json), eTag, headers);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void evictItem(String itemId) {
+        loadsInFlight.remove(itemKey(itemId));
+        cache.invalidate(itemKey(itemId));
+        evictListings();
+    }
+
+    public void evictListings() {
+        listingWrites.incrementAndGet();
+        listingsCache.invalidateAll();
+    }
+
+    private static Cache<String, EncodedResponse> newCache(long maximumBytes, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .<String, EncodedResponse>weigher((key, response) -> response.size())
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressedBytes)) {
+            gzipOutputStream.write(bytes);
+        }
+        return compressedBytes.toByteArray();
+    }
+}
@@ -0,0 +1,81 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Updates an item's description and price, optionally conditional on an If-Match precondition,
+ * and keeps the {@link ItemCache} and {@link ItemResponseCache} up to date.
+ * <p>
+ * With items.write-coalescing.enabled, bursts of unconditional updates to the same item are merged
+ * into a single write, see {@link ItemWriteCoalescer}.
+ */
+@Component
+public class ItemUpdater {
+
+    private ItemRepository itemRepository;
+    private ItemCache itemCache;
+    private ItemResponseCache itemResponseCache;
+    private ItemWriteCoalescer itemWriteCoalescer;
+
+    @Autowired
+    public ItemUpdater(ItemRepository itemRepository, ItemCache itemCache, ItemResponseCache itemResponseCache,
+                       MeterRegistry meterRegistry,
+                       @Value("${items.write-coalescing.enabled:false}") boolean writeCoalescing,
+                       @Value("${items.write-coalescing.window:5ms}") Duration writeCoalescingWindow) {
+        this.itemRepository = itemRepository;
+        this.itemCache = itemCache;
+        this.itemResponseCache = itemResponseCache;
+        this.itemWriteCoalescer = writeCoalescing
+                ? new ItemWriteCoalescer(this::updateUnconditionally, writeCoalescingWindow, meterRegistry)
+                : null;
+    }
+
+    /**
+     * Without If-Match values, the item is updated unconditionally (and possibly coalesced with other such updates
+     * of the same item). Otherwise the current item
+     * is compared to the given tags and only updated if it is still unchanged at write time:
+     * The write itself matches on the values that were checked, so a concurrent update in between
+     * makes it fail rather than being overwritten.
+     *
+     * @param itemId              id of the item to update
+     * @param newValues           item holding the new description and price
+     * @param ifMatchHeaderValues values of the If-Match header, empty for an unconditional update
+     * @return the updated item, empty if there is no such item,
+     * or an {@link ItemModifiedException} if the precondition doesn't hold
+     */
+    public Mono<Item> update(String itemId, Item newValues, List<String> ifMatchHeaderValues) {
+        if (ifMatchHeaderValues.isEmpty()) {
+            return itemWriteCoalescer != null
+                    ? itemWriteCoalescer.update(itemId, newValues)
+                    : updateUnconditionally(itemId, newValues);
+        }
+        return itemRepository.findById(itemId)
+                .filter(currentItem -> ItemETags.matches(ifMatchHeaderValues, ItemETags.of(currentItem)))
+                .flatMap(currentItem -> itemRepository.updateDescriptionAndPriceIfUnchanged(currentItem,
+                        newValues.getDescription(), newValues.getPrice()))
+                .switchIfEmpty(Mono.defer(() -> itemRepository.existsById(itemId)
+                        .flatMap(exists -> exists
+                                ? Mono.error(new ItemModifiedException(itemId))
+                                : Mono.empty())))
+                .doOnNext(this::updateCaches);
+    }
+
+    private Mono<Item> updateUnconditionally(String itemId, Item newValues) {
+        return itemRepository.updateDescriptionAndPrice(itemId, newValues.getDescription(), newValues.getPrice())
+                .doOnNext(this::updateCaches);
+    }
+
+    private void updateCaches(Item updatedItem) {
+        itemCache.put(updatedItem);
+        itemResponseCache.evictItem(updatedItem.getId());
+    }
+}
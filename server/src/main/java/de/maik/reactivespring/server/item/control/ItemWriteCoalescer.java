@@ -0,0 +1,90 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Merges updates of the same item arriving within a short window into a single write: The first update
+ * of an item opens the window, later ones replace its values, so the last one wins. Once the window closes,
+ * the final values are written once and every caller gets the written item (or the write's error).
+ * <p>
+ * The write is issued whether or not callers are still waiting for it. Reports the number of updates
+ * merged into another update's write ({@value #COALESCED}) and how long callers waited for their window
+ * to close ({@value #DELAY}).
+ */
+public class ItemWriteCoalescer {
+
+    static final String COALESCED = "items.updates.coalesced";
+    static final String DELAY = "items.updates.coalescing.delay";
+    private BiFunction<String, Item, Mono<Item>> write;
+    private Duration window;
+    private ConcurrentHashMap<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    private Counter coalesced;
+    private Timer delay;
+
+    /**
+     * @param write  writes an item's new values, returning the updated item or empty if there is no such item
+     * @param window time to wait for further updates of an item before writing it
+     */
+    public ItemWriteCoalescer(BiFunction<String, Item, Mono<Item>> write, Duration window, MeterRegistry meterRegistry) {
+        this.write = write;
+        this.window = window;
+        this.coalesced = meterRegistry.counter(COALESCED);
+        this.delay = meterRegistry.timer(DELAY);
+    }
+
+    public Mono<Item> update(String itemId, Item newValues) {
+        return Mono.defer(() -> {
+            long joinedAt = System.nanoTime();
+            PendingWrite pendingWrite = pendingWrites.compute(itemId, (id, openWrite) -> {
+                if (openWrite == null) {
+                    return new PendingWrite(itemId, newValues);
+                }
+                openWrite.newValues = newValues;
+                coalesced.increment();
+                return openWrite;
+            });
+            pendingWrite.start();
+            return pendingWrite.result
+                    .doOnTerminate(() -> delay.record(pendingWrite.writtenAt - joinedAt, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private class PendingWrite {
+
+        private volatile Item newValues;
+        private volatile long writtenAt;
+        private AtomicBoolean started = new AtomicBoolean();
+        private Mono<Item> result;
+
+        PendingWrite(String itemId, Item newValues) {
+            this.newValues = newValues;
+            this.result = Mono.delay(window)
+                    .then(Mono.defer(() -> {
+                        // Updates arriving from here on open a new window, so newValues are final
+                        pendingWrites.remove(itemId, this);
+                        writtenAt = System.nanoTime();
+                        return write.apply(itemId, this.newValues);
+                    }))
+                    .cache();
+        }
+
+        void start() {
+            if (started.compareAndSet(false, true)) {
+                // Errors are passed on to the callers
+                result.subscribe(item -> {
+                }, error -> {
+                });
+            }
+        }
+    }
+}
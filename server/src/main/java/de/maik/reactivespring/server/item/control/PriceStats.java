@@ -0,0 +1,35 @@
+package de.maik.reactivespring.server.item.control;
+
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Price statistics over a set of items. Min, max and mean are null if there are no items.
+ * Percentiles are keyed by their name, e.g. p95, the histogram's buckets have equal widths.
+ */
+@Value
+public class PriceStats {
+    long count;
+    Double min;
+    Double max;
+    Double mean;
+    Map<String, Double> percentiles;
+    List<Bucket> histogram;
+
+    static PriceStats empty() {
+        return new PriceStats(0, null, null, null, Collections.emptyMap(), Collections.emptyList());
+    }
+
+    /**
+     * Items priced from lowerBound (inclusive) to upperBound (exclusive, but inclusive for the last bucket)
+     */
+    @Value
+    public static class Bucket {
+        double lowerBound;
+        double upperBound;
+        long count;
+    }
+}
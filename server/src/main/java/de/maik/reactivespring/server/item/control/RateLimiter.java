@@ -0,0 +1,97 @@
+package de.maik.reactivespring.server.item.control;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter per client, implemented as generic cell rate algorithm (GCRA):
+ * Instead of a token count that needs refilling, every client just has the theoretical arrival time
+ * of its next request, updated by a single compare-and-set. Admissions don't lock and clients
+ * never contend with each other.
+ * <p>
+ * A client whose bucket is full again is no different from one that was never seen, so once more than the
+ * maximum number of clients are known, such idle clients are swept. A bounded cache would do the same, but its
+ * bookkeeping on every read costs more than the admission decision itself. While all known clients are active,
+ * newcomers share a single overflow bucket, so flooding the limiter with new client keys buys no extra requests.
+ */
+public class RateLimiter {
+
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private long emissionInterval;
+    private long burstTolerance;
+    private long maximumClients;
+    private ConcurrentHashMap<String, AtomicLong> theoreticalArrivalTimes = new ConcurrentHashMap<>();
+    private AtomicLong overflowArrivalTime;
+    private AtomicLong lastSweep;
+    private LongSupplier nanoClock;
+
+    /**
+     * @param permitsPerSecond sustained rate per client
+     * @param burst            number of requests a client may send at once after being idle
+     * @param maximumClients   number of clients to keep track of
+     */
+    public RateLimiter(double permitsPerSecond, int burst, long maximumClients) {
+        this(permitsPerSecond, burst, maximumClients, System::nanoTime);
+    }
+
+    RateLimiter(double permitsPerSecond, int burst, long maximumClients, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.emissionInterval = Math.max(1, (long) (Duration.ofSeconds(1).toNanos() / permitsPerSecond));
+        this.burstTolerance = emissionInterval * burst;
+        this.maximumClients = maximumClients;
+        this.nanoClock = nanoClock;
+        this.overflowArrivalTime = new AtomicLong(nanoClock.getAsLong());
+        this.lastSweep = new AtomicLong(nanoClock.getAsLong() - SWEEP_INTERVAL);
+    }
+
+    /**
+     * @return 0 if the request is admitted, otherwise the nanoseconds until the client may retry
+     */
+    public long tryAcquire(String clientKey) {
+        long now = nanoClock.getAsLong();
+        AtomicLong theoreticalArrivalTime = theoreticalArrivalTimes.get(clientKey);
+        if (theoreticalArrivalTime == null) {
+            theoreticalArrivalTime = theoreticalArrivalTimes.size() >= maximumClients && !sweepIdleClients(now)
+                    ? overflowArrivalTime
+                    : theoreticalArrivalTimes.computeIfAbsent(clientKey, key -> new AtomicLong(now));
+        }
+        return tryAcquire(theoreticalArrivalTime, now);
+    }
+
+    private long tryAcquire(AtomicLong theoreticalArrivalTime, long now) {
+        while (true) {
+            long current = theoreticalArrivalTime.get();
+            long next = Math.max(current, now) + emissionInterval;
+            long allowedAt = next - burstTolerance;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    int trackedClients() {
+        return theoreticalArrivalTimes.size();
+    }
+
+    /**
+     * At most once per second, so a crowd of active clients doesn't make every newcomer scan them all.
+     * A request admitted concurrently to its client being swept is not counted, which at worst grants one extra request.
+     *
+     * @return whether there is room for another client
+     */
+    private boolean sweepIdleClients(long now) {
+        long previousSweep = lastSweep.get();
+        if (now - previousSweep >= SWEEP_INTERVAL && lastSweep.compareAndSet(previousSweep, now)) {
+            theoreticalArrivalTimes.values().removeIf(theoreticalArrivalTime -> theoreticalArrivalTime.get() <= now);
+        }
+        return theoreticalArrivalTimes.size() < maximumClients;
+    }
+}
@@ -1,9 +1,70 @@
 package de.maik.reactivespring.server.item.document;
 
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 
-public interface ItemRepository extends ReactiveMongoRepository<Item, String> {
+public interface ItemRepository extends ReactiveMongoRepository<Item, String>, ItemRepositoryCustom {
 
     Flux<Item> findByDescription(String description);
+
+    /**
+     * Anchored, case sensitive prefix match which is served by the description index
+     */
+    Flux<Item> findByDescriptionStartingWith(String descriptionPrefix);
+
+    /**
+     * Full text search, requires the description text index
+     */
+    Flux<Item> findAllBy(TextCriteria textCriteria);
+
+    /**
+     * First page of a keyset pagination over the item ids
+     */
+    Flux<Item> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Next page after an ObjectId-typed id. String ids sort before ObjectIds in MongoDB,
+     * so there is nothing of a different type left to return.
+     * Takes an ObjectId as Spring Data only converts ids passed to equality, $in and $ne.
+     */
+    Flux<Item> findByIdGreaterThanOrderByIdAsc(ObjectId id, Pageable pageable);
+
+    /**
+     * Next page after a String-typed id (e.g. a predefined one). MongoDB only compares values
+     * of the same BSON type, so the ObjectIds sorting after all strings need to be added explicitly.
+     * The pageable is expected to sort by id.
+     */
+    @Query("{ '$or': [ { '_id': { '$gt': ?0 } }, { '_id': { '$type': 'objectId' } } ] }")
+    Flux<Item> findByStringIdGreaterThan(String id, Pageable pageable);
+
+    /**
+     * All items in the (inclusive) price range, cheapest first and ties ordered by id.
+     * Served by the price index without sorting in memory, so results can be streamed.
+     */
+    Flux<Item> findByPriceBetweenOrderByPriceAscIdAsc(Range<Double> priceRange);
+
+    /**
+     * First page of a keyset pagination over the items in the (inclusive) price range, see above
+     */
+    Flux<Item> findByPriceBetweenOrderByPriceAscIdAsc(Range<Double> priceRange, Pageable pageable);
+
+    /**
+     * Next page of items up to maxPrice after the last item of the previous page, given by its price and
+     * ObjectId-typed id. The pageable is expected to sort by price and id.
+     */
+    @Query("{ 'price': { '$lte': ?2 }, '$or': [ { 'price': { '$gt': ?0 } }, { 'price': ?0, '_id': { '$gt': ?1 } } ] }")
+    Flux<Item> findByPriceAfterObjectId(double lastPrice, ObjectId lastId, double maxPrice, Pageable pageable);
+
+    /**
+     * Variant of {@link #findByPriceAfterObjectId(double, ObjectId, double, Pageable)} after a String-typed id,
+     * which needs to add the ObjectIds of the same price explicitly, see {@link #findByStringIdGreaterThan}.
+     */
+    @Query("{ 'price': { '$lte': ?2 }, '$or': [ { 'price': { '$gt': ?0 } }, { 'price': ?0, '_id': { '$gt': ?1 } },"
+            + " { 'price': ?0, '_id': { '$type': 'objectId' } } ] }")
+    Flux<Item> findByPriceAfterStringId(double lastPrice, String lastId, double maxPrice, Pageable pageable);
 }
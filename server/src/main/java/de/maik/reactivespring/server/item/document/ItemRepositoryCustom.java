@@ -0,0 +1,33 @@
+package de.maik.reactivespring.server.item.document;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Repository operations that can't be expressed as derived queries
+ */
+public interface ItemRepositoryCustom {
+
+    /**
+     * Atomically sets description and price of an existing item in a single round trip
+     *
+     * @return the updated item, empty if there is no item with the given id
+     */
+    Mono<Item> updateDescriptionAndPrice(String id, String description, double price);
+
+    /**
+     * Compare-and-set variant of {@link #updateDescriptionAndPrice(String, String, double)}:
+     * Only updates the item if it still has the same description and price as the expected item.
+     *
+     * @return the updated item, empty if the item doesn't exist or has been changed in the meantime
+     */
+    Mono<Item> updateDescriptionAndPriceIfUnchanged(Item expectedItem, String description, double price);
+
+    /**
+     * Loads all items, but only the given fields of each. All other fields are left
+     * at their default values (null or 0).
+     */
+    Flux<Item> findAllWithFields(Collection<String> fields);
+}
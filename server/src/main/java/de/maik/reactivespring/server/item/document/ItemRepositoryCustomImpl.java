@@ -0,0 +1,57 @@
+package de.maik.reactivespring.server.item.document;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Picked up by Spring Data by its name and merged into {@link ItemRepository}
+ */
+class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @Autowired
+    ItemRepositoryCustomImpl(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public Mono<Item> updateDescriptionAndPrice(String id, String description, double price) {
+        return mongoOperations.findAndModify(
+                query(where("id").is(id)),
+                new Update().set("description", description).set("price", price),
+                FindAndModifyOptions.options().returnNew(true),
+                Item.class);
+    }
+
+    @Override
+    public Mono<Item> updateDescriptionAndPriceIfUnchanged(Item expectedItem, String description, double price) {
+        return mongoOperations.findAndModify(
+                query(where("id").is(expectedItem.getId())
+                        .and("description").is(expectedItem.getDescription())
+                        .and("price").is(expectedItem.getPrice())),
+                new Update().set("description", description).set("price", price),
+                FindAndModifyOptions.options().returnNew(true),
+                Item.class);
+    }
+
+    @Override
+    public Flux<Item> findAllWithFields(Collection<String> fields) {
+        Query query = new Query();
+        fields.forEach(field -> query.fields().include(field));
+        if (!fields.contains("id")) {
+            query.fields().exclude("id"); // Included by MongoDB unless excluded explicitly
+        }
+        return mongoOperations.find(query, Item.class);
+    }
+}
@@ -0,0 +1,35 @@
+package de.maik.reactivespring.server.item.initializers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Out of service (503 on the health endpoint) until {@link ItemDataInitializer} has inserted all items,
+ * down if that failed. Part of the readiness health group, so no traffic is routed to a half seeded instance.
+ */
+@Component
+@Profile("!test")
+public class ItemDataHealthIndicator implements HealthIndicator {
+
+    private ItemDataInitializer itemDataInitializer;
+
+    @Autowired
+    public ItemDataHealthIndicator(ItemDataInitializer itemDataInitializer) {
+        this.itemDataInitializer = itemDataInitializer;
+    }
+
+    @Override
+    public Health health() {
+        if (itemDataInitializer.getFailure() != null) {
+            return Health.down().withDetail("error", itemDataInitializer.getFailure().toString()).build();
+        }
+        Health.Builder healthBuilder = itemDataInitializer.isCompleted() ? Health.up() : Health.outOfService();
+        return healthBuilder
+                .withDetail("syntheticItems", itemDataInitializer.getSyntheticItems())
+                .withDetail("insertedSyntheticItems", itemDataInitializer.getInsertedSyntheticItems())
+                .build();
+    }
+}
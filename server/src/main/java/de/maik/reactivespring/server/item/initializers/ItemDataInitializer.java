@@ -4,38 +4,87 @@ import de.maik.reactivespring.server.item.document.Item;
 import de.maik.reactivespring.server.item.document.ItemRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Replaces all items with a few well-known sample items plus an optional number of synthetic ones
+ * (items.seed.synthetic-items), which allows for realistically sized perf environments.
+ * <p>
+ * Blocks until all items are in place. As the web server already accepts requests by then,
+ * {@link ItemDataHealthIndicator} keeps the instance out of service until seeding completes.
+ */
 @Component
 @Profile("!test")
 @Slf4j
 public class ItemDataInitializer implements CommandLineRunner {
 
     private ItemRepository itemRepository;
+    private ItemSeeder itemSeeder;
+    private long syntheticItems;
+    private volatile boolean completed;
+    private volatile Throwable failure;
 
     @Autowired
-    public ItemDataInitializer(ItemRepository itemRepository) {
+    public ItemDataInitializer(ItemRepository itemRepository, ReactiveMongoOperations mongoOperations,
+                               @Value("${items.seed.synthetic-items:0}") long syntheticItems,
+                               @Value("${items.seed.batch-size:1000}") int batchSize,
+                               @Value("${items.seed.concurrency:4}") int concurrency,
+                               @Value("${items.seed.random-seed:42}") long randomSeed,
+                               @Value("${items.seed.progress-interval:5s}") Duration progressInterval) {
         this.itemRepository = itemRepository;
+        this.itemSeeder = new ItemSeeder(mongoOperations, batchSize, concurrency, randomSeed, progressInterval);
+        this.syntheticItems = syntheticItems;
     }
 
     @Override
     public void run(String... args) throws Exception {
         log.info("Inserting Sample Item data.");
-        setupSampleItemData();
+        setupSampleItemData()
+                .then(Mono.defer(() -> itemSeeder.seed(syntheticItems)))
+                .doOnSuccess(inserted -> completed = true)
+                .doOnError(e -> {
+                    failure = e;
+                    log.error("Inserting Item data failed", e);
+                })
+                .onErrorResume(e -> Mono.empty())
+                .block();
     }
 
-    private void setupSampleItemData() {
-        itemRepository.deleteAll().thenMany(
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return the reason seeding failed, null if it didn't (yet)
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public long getSyntheticItems() {
+        return syntheticItems;
+    }
+
+    public long getInsertedSyntheticItems() {
+        return itemSeeder.getInsertedItems();
+    }
+
+    private Mono<Void> setupSampleItemData() {
+        return itemRepository.deleteAll().thenMany(
                 Flux.fromIterable(createSampleItems()))
                 .flatMap(itemRepository::save)
-                .thenMany(itemRepository.findAll())
-                .subscribe(item -> log.info("Inserted sample item: " + item));
+                .doOnNext(item -> log.info("Inserted sample item: " + item))
+                .then();
     }
 
     private List<Item> createSampleItems() {
@@ -0,0 +1,65 @@
+package de.maik.reactivespring.server.item.initializers;
+
+import de.maik.reactivespring.server.item.document.Item;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Synthetic items for seeding and load tests. Descriptions look like "Santa Cruz Megatower Pro 2019",
+ * prices are log-normally distributed around ~2.500 with a long tail, like real bike prices.
+ */
+public final class ItemGenerator {
+
+    private static final List<String> BRANDS = Collections.unmodifiableList(Arrays.asList("Specialized", "Santa Cruz",
+            "Rondo", "Propain", "Canyon", "Cube", "Trek", "YT", "Commencal", "Nukeproof", "Orbea", "Scott", "Giant", "Rose",
+            "Radon", "Ghost"));
+    private static final List<String> MODELS = Collections.unmodifiableList(Arrays.asList("Enduro", "Megatower", "Ruut",
+            "Tyee", "Spectral", "Stereo", "Slash", "Capra", "Meta", "Mega", "Rallon", "Genius", "Reign", "Root Miller",
+            "Swoop", "Riot"));
+    private static final List<String> VARIANTS = Collections.unmodifiableList(Arrays.asList("Elite", "Pro", "Comp",
+            "Expert", "CF", "AL", "ST", "Race", "Base", "Ultimate"));
+
+    private ItemGenerator() {
+    }
+
+    /**
+     * Items of a single batch, without ids. A batch only depends on the seed and its index,
+     * so batches can be generated in any order (or concurrently) and still add up to the same data set.
+     */
+    public static List<Item> batch(long seed, long batchIndex, int batchSize) {
+        Random random = new Random(seed * 31 + batchIndex);
+        return IntStream.range(0, batchSize)
+                .mapToObj(i -> new Item(null, randomDescription(random), randomPrice(random)))
+                .collect(Collectors.toList());
+    }
+
+    public static String randomDescription(Random random) {
+        return randomBrand(random) + " " + randomModel(random) + " " + randomVariant(random) + " "
+                + (2010 + random.nextInt(11));
+    }
+
+    public static String randomBrand(Random random) {
+        return randomElement(random, BRANDS);
+    }
+
+    public static String randomModel(Random random) {
+        return randomElement(random, MODELS);
+    }
+
+    public static String randomVariant(Random random) {
+        return randomElement(random, VARIANTS);
+    }
+
+    private static String randomElement(Random random, List<String> elements) {
+        return elements.get(random.nextInt(elements.size()));
+    }
+
+    public static double randomPrice(Random random) {
+        return Math.round(Math.exp(7.8 + 0.6 * random.nextGaussian()) * 100) / 100.0;
+    }
+}
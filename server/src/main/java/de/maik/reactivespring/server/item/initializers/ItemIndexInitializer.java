@@ -0,0 +1,59 @@
+package de.maik.reactivespring.server.item.initializers;
+
+import de.maik.reactivespring.server.item.document.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Makes sure all indexes needed by the Items API exist. Runs before any data is inserted,
+ * creating an index that already exists is a no-op.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ItemIndexInitializer implements CommandLineRunner {
+
+    public static final String DESCRIPTION_INDEX = "description";
+    public static final String DESCRIPTION_TEXT_INDEX = "description_text";
+    public static final String PRICE_INDEX = "price_id";
+    private ReactiveMongoOperations mongoOperations;
+
+    @Autowired
+    public ItemIndexInitializer(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        log.info("Ensuring Item indexes.");
+        ensureIndexes();
+    }
+
+    public void ensureIndexes() {
+        ReactiveIndexOperations indexOperations = mongoOperations.indexOps(Item.class);
+        Flux.concat(
+                // Exact matches and anchored prefix regexes
+                indexOperations.ensureIndex(new Index().on("description", Sort.Direction.ASC)
+                        .named(DESCRIPTION_INDEX)),
+                // Full text search ($text won't work without it)
+                indexOperations.ensureIndex(new TextIndexDefinition.TextIndexDefinitionBuilder()
+                        .onField("description")
+                        .named(DESCRIPTION_TEXT_INDEX)
+                        .build()),
+                // Price ranges and items in price order (e.g. for percentiles), ties broken by id for keyset pagination
+                indexOperations.ensureIndex(new Index().on("price", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)
+                        .named(PRICE_INDEX)))
+                .doOnNext(indexName -> log.info("Ensured Item index: " + indexName))
+                .blockLast(); // Block so the indexes are in place before data gets inserted or queried
+    }
+}
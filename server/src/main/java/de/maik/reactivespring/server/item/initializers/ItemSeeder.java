@@ -0,0 +1,94 @@
+package de.maik.reactivespring.server.item.initializers;
+
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import de.maik.reactivespring.server.item.document.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts large numbers of generated items (see {@link ItemGenerator}) quickly.
+ * <p>
+ * Items are generated and written in batches, each with a single unordered insertMany, so the database
+ * doesn't have to apply a batch's documents one after the other. A few batches are written concurrently.
+ * Progress and throughput are logged periodically while seeding.
+ */
+@Slf4j
+public class ItemSeeder {
+
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
+
+    private ReactiveMongoOperations mongoOperations;
+    private int batchSize;
+    private int concurrency;
+    private long randomSeed;
+    private Duration progressInterval;
+    private AtomicLong insertedItems = new AtomicLong();
+
+    public ItemSeeder(ReactiveMongoOperations mongoOperations, int batchSize, int concurrency, long randomSeed,
+                      Duration progressInterval) {
+        this.mongoOperations = mongoOperations;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.randomSeed = randomSeed;
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * @param numberOfItems number of items to insert, on top of those already in the collection
+     * @return the number of inserted items once all of them are written
+     */
+    public Mono<Long> seed(long numberOfItems) {
+        return Mono.defer(() -> {
+            MongoCollection<Document> collection =
+                    mongoOperations.getCollection(mongoOperations.getCollectionName(Item.class));
+            int numberOfBatches = Math.toIntExact((numberOfItems + batchSize - 1) / batchSize);
+            long start = System.nanoTime();
+            Disposable progressLogging = Flux.interval(progressInterval)
+                    .subscribe(tick -> logProgress("Seeding", numberOfItems, start));
+            return Flux.range(0, numberOfBatches)
+                    .map(batchIndex -> toDocuments(ItemGenerator.batch(randomSeed, batchIndex,
+                            (int) Math.min(batchSize, numberOfItems - (long) batchIndex * batchSize))))
+                    .flatMap(documents -> Mono.from(collection.insertMany(documents, UNORDERED))
+                            .thenReturn(documents.size()), concurrency)
+                    .doOnNext(insertedItems::addAndGet)
+                    .then(Mono.fromCallable(insertedItems::get))
+                    .doOnSuccess(inserted -> logProgress("Seeded", numberOfItems, start))
+                    .doFinally(signalType -> progressLogging.dispose());
+        });
+    }
+
+    /**
+     * @return the number of items inserted so far
+     */
+    public long getInsertedItems() {
+        return insertedItems.get();
+    }
+
+    private List<Document> toDocuments(List<Item> items) {
+        return items.stream()
+                .map(item -> {
+                    Document document = new Document();
+                    mongoOperations.getConverter().write(item, document);
+                    return document;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void logProgress(String prefix, long numberOfItems, long start) {
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 0.001);
+        long inserted = insertedItems.get();
+        log.info(String.format(Locale.ROOT, "%s %,d/%,d items in %.1f s (%,.0f items/s)",
+                prefix, inserted, numberOfItems, seconds, inserted / seconds));
+    }
+}
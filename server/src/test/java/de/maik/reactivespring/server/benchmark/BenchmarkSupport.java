@@ -0,0 +1,90 @@
+package de.maik.reactivespring.server.benchmark;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.initializers.ItemGenerator;
+import de.maik.reactivespring.server.item.initializers.ItemSeeder;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Seeding and latency measurement shared by the database benchmarks
+ */
+class BenchmarkSupport {
+
+    private static final int SEEDING_CHUNK_SIZE = 10_000;
+
+    private BenchmarkSupport() {
+    }
+
+    static int numberOfItems() {
+        return Integer.getInteger("benchmark.items", 1_000_000);
+    }
+
+    /**
+     * Inserts the given number of generated items, see {@link ItemGenerator}
+     */
+    static void seed(ReactiveMongoOperations mongoOperations, int numberOfItems) {
+        ItemSeeder itemSeeder = new ItemSeeder(mongoOperations, SEEDING_CHUNK_SIZE, 4, 42, Duration.ofSeconds(5));
+        mongoOperations.dropCollection(Item.class)
+                .then(itemSeeder.seed(numberOfItems))
+                .block();
+    }
+
+    /**
+     * Runs the query a few times for warm up and then the given number of times,
+     * waiting for the complete result each time
+     *
+     * @return the latency percentiles of the measured runs
+     */
+    static LatencyReport measure(String name, int runs, Supplier<Flux<?>> query) {
+        for (int i = 0; i < Math.min(runs, 10); i++) {
+            query.get().blockLast();
+        }
+        long[] latencies = new long[runs];
+        long results = 0;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            results += query.get().count().block();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return new LatencyReport(name, runs, results / runs, latencies);
+    }
+
+    static void print(String title, List<LatencyReport> reports) {
+        System.out.println();
+        System.out.println(title);
+        System.out.printf(Locale.ROOT, "%-40s %8s %10s %10s %10s %10s%n", "query", "runs", "results", "p50 ms", "p95 ms", "p99 ms");
+        reports.forEach(report -> System.out.println(report.format()));
+    }
+
+    static class LatencyReport {
+        private final String name;
+        private final int runs;
+        private final long averageResults;
+        private final long[] sortedLatencies;
+
+        LatencyReport(String name, int runs, long averageResults, long[] sortedLatencies) {
+            this.name = name;
+            this.runs = runs;
+            this.averageResults = averageResults;
+            this.sortedLatencies = sortedLatencies;
+        }
+
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+
+        String format() {
+            return String.format(Locale.ROOT, "%-40s %8d %10d %10.2f %10.2f %10.2f", name, runs, averageResults,
+                    percentileMillis(50), percentileMillis(95), percentileMillis(99));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package de.maik.reactivespring.server.benchmark;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import de.maik.reactivespring.server.item.initializers.ItemGenerator;
+import de.maik.reactivespring.server.item.initializers.ItemIndexInitializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static de.maik.reactivespring.server.item.initializers.ItemGenerator.randomBrand;
+import static de.maik.reactivespring.server.item.initializers.ItemGenerator.randomModel;
+import static de.maik.reactivespring.server.item.initializers.ItemGenerator.randomVariant;
+
+/**
+ * Compares the latency of the description search modes on a seeded collection, with and without indexes.
+ * <p>
+ * Not part of the regular build as its name doesn't match surefire's test patterns. Run it with
+ * {@code mvn test -Dtest=DescriptionSearchBenchmark [-Dbenchmark.items=1000000]}
+ */
+@DataMongoTest
+@ExtendWith(SpringExtension.class)
+@Import(ItemIndexInitializer.class)
+class DescriptionSearchBenchmark {
+
+    private static final int RUNS_WITHOUT_INDEXES = 20;
+    private static final int RUNS_WITH_INDEXES = 200;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ReactiveMongoOperations mongoOperations;
+
+    @Autowired
+    ItemIndexInitializer itemIndexInitializer;
+
+    @Test
+    void compareSearchLatencyWithAndWithoutIndexes() {
+        BenchmarkSupport.seed(mongoOperations, BenchmarkSupport.numberOfItems());
+
+        mongoOperations.indexOps(Item.class).dropAllIndexes().block();
+        BenchmarkSupport.print("Without description indexes", measureSearches(RUNS_WITHOUT_INDEXES, false));
+
+        itemIndexInitializer.ensureIndexes();
+        BenchmarkSupport.print("With description indexes", measureSearches(RUNS_WITH_INDEXES, true));
+    }
+
+    private List<BenchmarkSupport.LatencyReport> measureSearches(int runs, boolean withTextIndex) {
+        // Same seed for both runs, so they query the same descriptions
+        Random random = new Random(7);
+        List<BenchmarkSupport.LatencyReport> reports = new ArrayList<>();
+        reports.add(BenchmarkSupport.measure("exact (brand model variant year)", runs,
+                () -> itemRepository.findByDescription(ItemGenerator.randomDescription(random))));
+        reports.add(BenchmarkSupport.measure("prefix (brand model variant)", runs,
+                () -> itemRepository.findByDescriptionStartingWith(randomBrand(random) + " "
+                        + randomModel(random) + " " + randomVariant(random))));
+        if (withTextIndex) {
+            // $text fails without a text index, so there's nothing to compare against
+            reports.add(BenchmarkSupport.measure("text (model variant)", runs,
+                    () -> itemRepository.findAllBy(TextCriteria.forDefaultLanguage().matchingPhrase(
+                            randomModel(random) + " " + randomVariant(random)))));
+        }
+        return reports;
+    }
+}
@@ -0,0 +1,58 @@
+package de.maik.reactivespring.server.benchmark;
+
+import de.maik.reactivespring.server.item.document.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a mix of reads and writes against the v2 API of a server running on the embedded MongoDB
+ * at a fixed rate, see {@link LoadProfile} for the options. Fails if more requests fail than
+ * loadtest.max-error-rate (default 0.01) allows.
+ * <p>
+ * Not part of the regular build as its name doesn't match surefire's test patterns. Run it with
+ * {@code mvn test -Dtest=ItemsApiLoadBenchmark [-Dloadtest.items=10000] [-Dloadtest.rate=500] [-Dloadtest.duration=60]
+ * [-Dloadtest.warmup=10] [-Dloadtest.mix=GET=90,PUT=10]}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test") // Keeps the sample data initializer from interfering with the seeded items
+class ItemsApiLoadBenchmark {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ReactiveMongoOperations mongoOperations;
+
+    @Test
+    void serveConfiguredLoadWithinErrorBudget() {
+        BenchmarkSupport.seed(mongoOperations, Integer.getInteger("loadtest.items", 10_000));
+        Query idsOnly = new Query();
+        idsOnly.fields().include("id");
+        List<String> itemIds = mongoOperations.find(idsOnly, Item.class).map(Item::getId).collectList().block();
+
+        WebClient webClient = WebClient.create("http://localhost:" + port);
+        LoadProfile loadProfile = LoadProfile.fromSystemProperties();
+
+        // Let the JIT compile the hot paths first, results of the warm up are discarded
+        loadProfile.warmupProfile()
+                .ifPresent(warmupProfile -> new LoadGenerator(webClient, itemIds, warmupProfile).run());
+        LoadGenerator.LoadReport report = new LoadGenerator(webClient, itemIds, loadProfile).run();
+        report.print();
+
+        assertThat(report.errorRate()).isLessThanOrEqualTo(Double.parseDouble(
+                System.getProperty("loadtest.max-error-rate", "0.01")));
+    }
+}
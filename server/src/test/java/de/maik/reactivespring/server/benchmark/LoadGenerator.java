@@ -0,0 +1,207 @@
+package de.maik.reactivespring.server.benchmark;
+
+import de.maik.reactivespring.server.benchmark.LoadProfile.Operation;
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.initializers.ItemGenerator;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Open-loop load generator for the v2 Items API: Requests are sent on a fixed schedule, no matter
+ * how long earlier requests take, just like independent users would send them.
+ * <p>
+ * Latencies are measured from the time a request was scheduled to be sent rather than from the time it
+ * actually was sent. A stalling server thereby shows in the numbers of all requests it held up
+ * instead of only the one it stalled on (no coordinated omission).
+ */
+class LoadGenerator {
+
+    private static final String ITEMS_ENDPOINT_V2 = "/v2/items";
+    private static final String ITEM_ENDPOINT_V2 = ITEMS_ENDPOINT_V2 + "/{itemId}";
+    private static final int MAX_REQUESTS_IN_FLIGHT = 4096;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final WebClient webClient;
+    private final List<String> itemIds;
+    private final LoadProfile loadProfile;
+    private final Queue<String> createdItemIds = new ConcurrentLinkedQueue<>();
+    private final Map<Operation, OperationStats> operationStats = new EnumMap<>(Operation.class);
+    private final LongAdder droppedRequests = new LongAdder();
+
+    /**
+     * @param itemIds ids of existing items to read and update, they are never deleted
+     */
+    LoadGenerator(WebClient webClient, List<String> itemIds, LoadProfile loadProfile) {
+        this.webClient = webClient;
+        this.itemIds = itemIds;
+        this.loadProfile = loadProfile;
+        for (Operation operation : Operation.values()) {
+            operationStats.put(operation, new OperationStats());
+        }
+    }
+
+    LoadReport run() {
+        // Fixed seed, so runs with the same profile send the same sequence of requests
+        Random random = new Random(42);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / loadProfile.getRequestsPerSecond();
+        long start = System.nanoTime();
+        Flux.interval(Duration.ofNanos(intervalNanos))
+                .take(loadProfile.totalRequests())
+                // More requests in flight than the limit means the server can't keep up, count instead of queueing them
+                .onBackpressureDrop(tick -> droppedRequests.increment())
+                .flatMap(tick -> {
+                    long scheduledStart = start + (tick + 1) * intervalNanos;
+                    Operation operation = loadProfile.nextOperation(random);
+                    return send(operation, random)
+                            .timeout(REQUEST_TIMEOUT)
+                            .onErrorReturn(false)
+                            .doOnNext(successful -> operationStats.get(operation)
+                                    .record(System.nanoTime() - scheduledStart, successful));
+                }, MAX_REQUESTS_IN_FLIGHT)
+                .blockLast(loadProfile.getDuration().plus(REQUEST_TIMEOUT).multipliedBy(2));
+        return new LoadReport(loadProfile, Duration.ofNanos(System.nanoTime() - start),
+                droppedRequests.sum(), operationStats);
+    }
+
+    /**
+     * @return whether the request was answered with 2xx
+     */
+    private Mono<Boolean> send(Operation operation, Random random) {
+        switch (operation) {
+            case GET:
+                return webClient.get().uri(ITEM_ENDPOINT_V2, randomItemId(random))
+                        .exchange()
+                        .flatMap(LoadGenerator::isSuccessful);
+            case POST:
+                return webClient.post().uri(ITEMS_ENDPOINT_V2)
+                        .bodyValue(randomItem(random))
+                        .exchange()
+                        .doOnNext(this::rememberCreatedItem)
+                        .flatMap(LoadGenerator::isSuccessful);
+            case PUT:
+                return webClient.put().uri(ITEM_ENDPOINT_V2, randomItemId(random))
+                        .bodyValue(randomItem(random))
+                        .exchange()
+                        .flatMap(LoadGenerator::isSuccessful);
+            default:
+                // Only items created during the run are deleted, so reads and updates keep finding theirs
+                String createdItemId = createdItemIds.poll();
+                return webClient.delete().uri(ITEM_ENDPOINT_V2, createdItemId != null ? createdItemId : "NOTAVAILABLE001")
+                        .exchange()
+                        .flatMap(LoadGenerator::isSuccessful);
+        }
+    }
+
+    private void rememberCreatedItem(ClientResponse response) {
+        URI location = response.headers().asHttpHeaders().getLocation();
+        if (location != null) {
+            String path = location.getPath();
+            createdItemIds.add(path.substring(path.lastIndexOf('/') + 1));
+        }
+    }
+
+    private static Mono<Boolean> isSuccessful(ClientResponse response) {
+        return response.releaseBody().thenReturn(response.statusCode().is2xxSuccessful());
+    }
+
+    private String randomItemId(Random random) {
+        return itemIds.get(random.nextInt(itemIds.size()));
+    }
+
+    private static Item randomItem(Random random) {
+        return new Item(null, ItemGenerator.randomDescription(random), ItemGenerator.randomPrice(random));
+    }
+
+    /**
+     * Latencies in microseconds and failures of a single operation type, recorded concurrently
+     */
+    static class OperationStats {
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final LongAdder failures = new LongAdder();
+
+        void record(long latencyNanos, boolean successful) {
+            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            if (!successful) {
+                failures.increment();
+            }
+        }
+
+        long count() {
+            return latencies.getTotalCount();
+        }
+
+        long failures() {
+            return failures.sum();
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1e3;
+        }
+
+        double maxMillis() {
+            return latencies.getMaxValue() / 1e3;
+        }
+    }
+
+    static class LoadReport {
+        private final LoadProfile loadProfile;
+        private final Duration elapsed;
+        private final long droppedRequests;
+        private final Map<Operation, OperationStats> operationStats;
+
+        LoadReport(LoadProfile loadProfile, Duration elapsed, long droppedRequests,
+                   Map<Operation, OperationStats> operationStats) {
+            this.loadProfile = loadProfile;
+            this.elapsed = elapsed;
+            this.droppedRequests = droppedRequests;
+            this.operationStats = operationStats;
+        }
+
+        long completedRequests() {
+            return operationStats.values().stream().mapToLong(OperationStats::count).sum();
+        }
+
+        /**
+         * @return share of failed and dropped requests among all scheduled ones
+         */
+        double errorRate() {
+            long failedRequests = operationStats.values().stream().mapToLong(OperationStats::failures).sum();
+            long scheduledRequests = completedRequests() + droppedRequests;
+            return scheduledRequests == 0 ? 0 : (double) (failedRequests + droppedRequests) / scheduledRequests;
+        }
+
+        void print() {
+            System.out.println();
+            System.out.println("Load test: " + loadProfile);
+            System.out.printf(Locale.ROOT, "%-8s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                    "op", "requests", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors %");
+            operationStats.forEach((operation, stats) -> {
+                if (stats.count() > 0) {
+                    System.out.printf(Locale.ROOT, "%-8s %9d %8d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                            operation, stats.count(), stats.failures(), stats.percentileMillis(50),
+                            stats.percentileMillis(90), stats.percentileMillis(99), stats.percentileMillis(99.9),
+                            stats.maxMillis(), 100.0 * stats.failures() / stats.count());
+                }
+            });
+            System.out.printf(Locale.ROOT, "Throughput: %.1f requests/s (target %d), dropped: %d, error rate: %.2f %%%n",
+                    completedRequests() / (elapsed.toNanos() / 1e9), loadProfile.getRequestsPerSecond(),
+                    droppedRequests, 100 * errorRate());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.maik.reactivespring.server.benchmark;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Target rate, duration and operation mix of a load test run, configured by system properties:
+ * <ul>
+ *     <li>loadtest.rate: requests per second, default 200</li>
+ *     <li>loadtest.duration: seconds, default 30</li>
+ *     <li>loadtest.warmup: seconds of load at the same rate and mix before measuring, default 10</li>
+ *     <li>loadtest.mix: relative weights of the operations, default GET=70,POST=10,PUT=15,DELETE=5</li>
+ * </ul>
+ */
+class LoadProfile {
+
+    enum Operation {
+        GET, POST, PUT, DELETE
+    }
+
+    private final int requestsPerSecond;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Map<Operation, Integer> weights;
+    private final int totalWeight;
+
+    LoadProfile(int requestsPerSecond, Duration duration, Duration warmup, Map<Operation, Integer> weights) {
+        if (requestsPerSecond <= 0 || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Rate and duration need to be positive");
+        }
+        this.requestsPerSecond = requestsPerSecond;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.weights = weights;
+        this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Operation mix needs at least one positive weight");
+        }
+    }
+
+    static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Integer.getInteger("loadtest.rate", 200),
+                Duration.ofSeconds(Integer.getInteger("loadtest.duration", 30)),
+                Duration.ofSeconds(Integer.getInteger("loadtest.warmup", 10)),
+                parseMix(System.getProperty("loadtest.mix", "GET=70,POST=10,PUT=15,DELETE=5")));
+    }
+
+    /**
+     * @param mix e.g. "GET=70,POST=10,PUT=15,DELETE=5", operations left out are not sent
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] operationAndWeight = entry.trim().split("=");
+            if (operationAndWeight.length != 2) {
+                throw new IllegalArgumentException("Malformed operation mix entry: " + entry);
+            }
+            weights.put(Operation.valueOf(operationAndWeight[0].trim().toUpperCase()),
+                    Integer.parseInt(operationAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * @return a random operation according to the mix's weights
+     */
+    Operation nextOperation(Random random) {
+        int pick = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Weights don't add up to " + totalWeight);
+    }
+
+    int getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the profile to warm up with, empty if there's no warm up
+     */
+    Optional<LoadProfile> warmupProfile() {
+        return warmup.isZero()
+                ? Optional.empty()
+                : Optional.of(new LoadProfile(requestsPerSecond, warmup, Duration.ZERO, weights));
+    }
+
+    long totalRequests() {
+        return requestsPerSecond * duration.getSeconds();
+    }
+
+    @Override
+    public String toString() {
+        return requestsPerSecond + " requests/s for " + duration.getSeconds() + " s, mix " + weights;
+    }
+}
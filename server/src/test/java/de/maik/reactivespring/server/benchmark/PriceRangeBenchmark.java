@@ -0,0 +1,75 @@
+package de.maik.reactivespring.server.benchmark;
+
+import de.maik.reactivespring.server.item.control.ItemPriceRangePager;
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import de.maik.reactivespring.server.item.initializers.ItemIndexInitializer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Compares the latency of price range queries and of deep pages in price order, keyset paginated as done by
+ * {@link ItemPriceRangePager} versus classic skip/limit paging, on a seeded collection with the price index.
+ * <p>
+ * Not part of the regular build as its name doesn't match surefire's test patterns. Run it with
+ * {@code mvn test -Dtest=PriceRangeBenchmark [-Dbenchmark.items=1000000]}
+ */
+@DataMongoTest
+@ExtendWith(SpringExtension.class)
+@Import(ItemIndexInitializer.class)
+class PriceRangeBenchmark {
+
+    private static final int RUNS = 100;
+    private static final int PAGE_SIZE = 100;
+    private static final Sort PRICE_ORDER = Sort.by("price", "id");
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ReactiveMongoOperations mongoOperations;
+
+    @Autowired
+    ItemIndexInitializer itemIndexInitializer;
+
+    @Test
+    void compareKeysetAndOffsetPagesByPrice() {
+        int numberOfItems = BenchmarkSupport.numberOfItems();
+        BenchmarkSupport.seed(mongoOperations, numberOfItems);
+        itemIndexInitializer.ensureIndexes();
+
+        List<BenchmarkSupport.LatencyReport> reports = new ArrayList<>();
+        // Roughly 1% of the items, prices are log-normally distributed around ~2.500
+        reports.add(BenchmarkSupport.measure("range 2400-2450 streamed", RUNS,
+                () -> itemRepository.findByPriceBetweenOrderByPriceAscIdAsc(Range.closed(2400.0, 2450.0))));
+        for (int depth : new int[]{0, numberOfItems / 100, numberOfItems / 10, numberOfItems / 2}) {
+            Item lastItemBefore = depth == 0 ? null : mongoOperations.findOne(new Query()
+                    .with(PRICE_ORDER).skip(depth - 1).limit(1), Item.class).block();
+            reports.add(BenchmarkSupport.measure("offset page at " + depth, RUNS,
+                    () -> mongoOperations.find(new Query().with(PRICE_ORDER).skip(depth).limit(PAGE_SIZE), Item.class)));
+            reports.add(BenchmarkSupport.measure("keyset page at " + depth, RUNS,
+                    () -> lastItemBefore == null
+                            ? itemRepository.findByPriceBetweenOrderByPriceAscIdAsc(
+                            Range.closed(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY), PageRequest.of(0, PAGE_SIZE))
+                            : itemRepository.findByPriceAfterObjectId(lastItemBefore.getPrice(),
+                            new ObjectId(lastItemBefore.getId()), Double.POSITIVE_INFINITY,
+                            PageRequest.of(0, PAGE_SIZE, PRICE_ORDER))));
+        }
+        BenchmarkSupport.print("Pages of " + PAGE_SIZE + " items in price order", reports);
+    }
+}
@@ -0,0 +1,80 @@
+package de.maik.reactivespring.server.config;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveRepositoryMetricsTest {
+
+    private MeterRegistry meterRegistry;
+    private ItemRepository itemRepository;
+    private ItemRepository instrumentedItemRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        itemRepository = mock(ItemRepository.class);
+        ProxyFactory proxyFactory = new ProxyFactory(itemRepository);
+        proxyFactory.addInterface(ItemRepository.class);
+        proxyFactory.addAdvice(new ReactiveRepositoryMetrics(meterRegistry, "item"));
+        instrumentedItemRepository = (ItemRepository) proxyFactory.getProxy();
+    }
+
+    @Test
+    void fluxResultsAreTimedAndTheirElementsCounted() {
+        when(itemRepository.findAll()).thenReturn(Flux.just(
+                new Item("ITMID001", "Rondo Ruut ST", 2399.99),
+                new Item("ITMID002", "Santa Cruz Megatower", 7249.99)));
+
+        StepVerifier.create(instrumentedItemRepository.findAll()).expectNextCount(2).verifyComplete();
+
+        assertThat(meterRegistry.get(ReactiveRepositoryMetrics.CALLS)
+                .tags("method", "findAll", "outcome", "success", "exception", "none")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(ReactiveRepositoryMetrics.ELEMENTS)
+                .tags("method", "findAll")
+                .counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void errorsAreTaggedWithTheirType() {
+        when(itemRepository.findById("ITMID001")).thenReturn(Mono.error(new IllegalStateException()));
+
+        StepVerifier.create(instrumentedItemRepository.findById("ITMID001")).verifyError(IllegalStateException.class);
+
+        assertThat(meterRegistry.get(ReactiveRepositoryMetrics.CALLS)
+                .tags("method", "findById", "outcome", "error", "exception", "IllegalStateException")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void callsAreActiveFromSubscriptionUntilTermination() {
+        TestPublisher<Item> result = TestPublisher.create();
+        when(itemRepository.findById("ITMID001")).thenReturn(result.mono());
+        Mono<Item> itemMono = instrumentedItemRepository.findById("ITMID001");
+
+        StepVerifier.create(itemMono)
+                .then(() -> assertThat(activeCalls()).isEqualTo(1))
+                .then(result::complete)
+                .verifyComplete();
+        assertThat(activeCalls()).isZero();
+    }
+
+    private int activeCalls() {
+        return meterRegistry.get(ReactiveRepositoryMetrics.ACTIVE_CALLS)
+                .tags("method", "findById")
+                .longTaskTimer().activeTasks();
+    }
+}
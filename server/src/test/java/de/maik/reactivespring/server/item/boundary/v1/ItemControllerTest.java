@@ -1,5 +1,8 @@
 package de.maik.reactivespring.server.item.boundary.v1;
 
+import de.maik.reactivespring.server.config.CodecConfig;
+import de.maik.reactivespring.server.item.control.ItemCache;
+import de.maik.reactivespring.server.item.control.ItemPage;
 import de.maik.reactivespring.server.item.document.Item;
 import de.maik.reactivespring.server.item.document.ItemRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,13 +11,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -37,6 +45,9 @@ class ItemControllerTest {
     @Autowired
     ItemRepository itemRepository;
 
+    @Autowired
+    ItemCache itemCache;
+
     @BeforeEach
     private void setUp() {
         setupTestDatabase();
@@ -59,6 +70,35 @@ class ItemControllerTest {
                 });
     }
 
+    @Test
+    void pagingThroughAllItemsReturnsEveryItemExactlyOnce() {
+        List<Item> pagedItems = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            String nextPageUri = continuationToken == null
+                    ? ITEMS_ENDPOINT_V1 + "?size=2"
+                    : ITEMS_ENDPOINT_V1 + "?size=2&continuationToken=" + continuationToken;
+            FluxExchangeResult<Item> result = webTestClient.get().uri(nextPageUri)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(Item.class);
+            pagedItems.addAll(result.getResponseBody().collectList().block());
+            continuationToken = result.getResponseHeaders().getFirst(ItemPage.CONTINUATION_TOKEN_HEADER);
+        } while (continuationToken != null);
+
+        assertThat(pagedItems)
+                .usingRecursiveFieldByFieldElementComparator()
+                .usingElementComparatorIgnoringFields("id")
+                .containsExactlyInAnyOrderElementsOf(createSampleItems());
+    }
+
+    @Test
+    void pagingWithMalformedContinuationTokenReturnsHttp400() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V1 + "?size=2&continuationToken=not-a-token!")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void gettingSpecificItemByIdReturnsHttp200AndTheItem() {
         webTestClient.get().uri(ITEMS_ENDPOINT_V1.concat("/{itemId}"), PREDEFINED_ITEM_ID)
@@ -70,6 +110,64 @@ class ItemControllerTest {
                 .jsonPath("$.price").isEqualTo(PREDEFINED_ITEM_PRICE);
     }
 
+    @Test
+    void gettingAllItemsAsSmileReturnsHttp200AndAllItems() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V1)
+                .accept(CodecConfig.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CodecConfig.APPLICATION_SMILE)
+                .expectBody(new ParameterizedTypeReference<List<Item>>() {
+                })
+                .consumeWith(response -> assertThat(response.getResponseBody())
+                        .usingElementComparatorIgnoringFields("id")
+                        .containsExactlyInAnyOrderElementsOf(createSampleItems()));
+    }
+
+    @Test
+    void gettingSpecificItemAsSmileReturnsHttp200AndTheItem() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V1.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .accept(CodecConfig.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CodecConfig.APPLICATION_SMILE)
+                .expectBody(Item.class)
+                .isEqualTo(new Item(PREDEFINED_ITEM_ID, PREDEFINED_ITEM_DESCRIPTION, PREDEFINED_ITEM_PRICE));
+    }
+
+    @Test
+    void gettingSpecificItemWithCurrentETagReturnsHttp304WithoutBody() {
+        String eTag = webTestClient.get().uri(ITEMS_ENDPOINT_V1.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(Item.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get().uri(ITEMS_ENDPOINT_V1.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void gettingAllItemsWithOutdatedETagReturnsHttp200() {
+        String eTag = webTestClient.get().uri(ITEMS_ENDPOINT_V1)
+                .exchange()
+                .returnResult(Item.class)
+                .getResponseHeaders().getETag();
+        itemRepository.save(new Item(null, "Propain Hugene", 2999.00)).block();
+
+        webTestClient.get().uri(ITEMS_ENDPOINT_V1)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBodyList(Item.class)
+                .hasSize(createSampleItems().size() + 1);
+    }
+
     @Test
     void gettingSpecificNonExistingItemByIdReturnsHttp404() {
         webTestClient.get().uri(ITEMS_ENDPOINT_V1.concat("/{itemId}"), "NOTAVAILABLE001")
@@ -115,6 +213,35 @@ class ItemControllerTest {
                 .jsonPath("$.price").isEqualTo(newItemPrice);
     }
 
+    @Test
+    void updatingItemWithCurrentETagReturnsHttp200AndANewETag() {
+        String eTag = webTestClient.get().uri(ITEMS_ENDPOINT_V1.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .exchange()
+                .returnResult(Item.class)
+                .getResponseHeaders().getETag();
+        Item item = new Item(null, PREDEFINED_ITEM_DESCRIPTION, 42.42);
+
+        webTestClient.put().uri(ITEMS_ENDPOINT_V1.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .body(Mono.just(item), Item.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, newETag -> assertThat(newETag).isNotEqualTo(eTag));
+    }
+
+    @Test
+    void updatingItemWithOutdatedETagReturnsHttp412() {
+        Item item = new Item(null, PREDEFINED_ITEM_DESCRIPTION, 42.42);
+
+        webTestClient.put().uri(ITEMS_ENDPOINT_V1.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"outdated\"")
+                .body(Mono.just(item), Item.class)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
     @Test
     void updatingNonExistingItemByIdReturnsHttp404() {
         Item item = new Item(null, PREDEFINED_ITEM_DESCRIPTION, 123);
@@ -130,6 +257,7 @@ class ItemControllerTest {
                 .flatMap(itemRepository::save)
                 .doOnNext(item -> System.out.println("Inserted Test Item: " + item))
                 .blockLast(); // Block until onComplete to avoid premature test execution
+        itemCache.evictAll(); // Repository was changed behind the cache's back
     }
 
     private List<Item> createSampleItems() {
@@ -1,5 +1,9 @@
 package de.maik.reactivespring.server.item.boundary.v2;
 
+import de.maik.reactivespring.server.config.CodecConfig;
+import de.maik.reactivespring.server.item.control.ItemCache;
+import de.maik.reactivespring.server.item.control.ItemPage;
+import de.maik.reactivespring.server.item.control.ItemPriceStatistics;
 import de.maik.reactivespring.server.item.document.Item;
 import de.maik.reactivespring.server.item.document.ItemRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,16 +12,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -38,6 +48,9 @@ class ItemsHandlerTest {
     @Autowired
     ItemRepository itemRepository;
 
+    @Autowired
+    ItemCache itemCache;
+
     @BeforeEach
     private void setUp() {
         setupTestDatabase();
@@ -60,6 +73,70 @@ class ItemsHandlerTest {
                 });
     }
 
+    @Test
+    void pagingThroughAllItemsReturnsEveryItemExactlyOnce() {
+        List<Item> pagedItems = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            String nextPageUri = continuationToken == null
+                    ? ITEMS_ENDPOINT_V2 + "?size=2"
+                    : ITEMS_ENDPOINT_V2 + "?size=2&continuationToken=" + continuationToken;
+            FluxExchangeResult<Item> result = webTestClient.get().uri(nextPageUri)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(Item.class);
+            pagedItems.addAll(result.getResponseBody().collectList().block());
+            continuationToken = result.getResponseHeaders().getFirst(ItemPage.CONTINUATION_TOKEN_HEADER);
+        } while (continuationToken != null);
+
+        assertThat(pagedItems)
+                .usingRecursiveFieldByFieldElementComparator()
+                .usingElementComparatorIgnoringFields("id")
+                .containsExactlyInAnyOrderElementsOf(createSampleItems());
+    }
+
+    @Test
+    void gettingItemsByPriceReturnsHttp200AndItemsInRangeCheapestFirst() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/by-price?min=500&max=4999")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class)
+                .value(items -> assertThat(items).extracting(Item::getPrice).containsExactly(699.99, 2399.99, 4999.00));
+    }
+
+    @Test
+    void pagingThroughItemsByPriceReturnsEveryItemExactlyOnceInPriceOrder() {
+        List<Item> pagedItems = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            String nextPageUri = ITEMS_ENDPOINT_V2 + "/by-price?size=2&max=7249.99"
+                    + (continuationToken == null ? "" : "&continuationToken=" + continuationToken);
+            FluxExchangeResult<Item> result = webTestClient.get().uri(nextPageUri)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(Item.class);
+            pagedItems.addAll(result.getResponseBody().collectList().block());
+            continuationToken = result.getResponseHeaders().getFirst(ItemPage.CONTINUATION_TOKEN_HEADER);
+        } while (continuationToken != null);
+
+        assertThat(pagedItems).extracting(Item::getPrice)
+                .containsExactly(PREDEFINED_ITEM_PRICE, 699.99, 2399.99, 4999.00, 7249.99);
+    }
+
+    @Test
+    void gettingItemsByEmptyPriceRangeReturnsHttp400() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/by-price?min=100&max=10")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void pagingWithMalformedContinuationTokenReturnsHttp400() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "?size=2&continuationToken=not-a-token!")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void gettingSpecificItemByIdReturnsHttp200AndTheItem() {
         webTestClient.get().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), PREDEFINED_ITEM_ID)
@@ -71,6 +148,223 @@ class ItemsHandlerTest {
                 .jsonPath("$.price").isEqualTo(PREDEFINED_ITEM_PRICE);
     }
 
+    @Test
+    void gettingItemsByIdsReturnsHttp200AndTheFoundItemsInRequestOrder() {
+        Item otherItem = itemRepository.save(new Item(null, "Canyon Spectral", 3299.00)).block();
+
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path(ITEMS_ENDPOINT_V2)
+                .queryParam("ids", otherItem.getId() + ",NOTAVAILABLE001")
+                .queryParam("ids", PREDEFINED_ITEM_ID)
+                .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class)
+                .consumeWith(response -> assertThat(response.getResponseBody())
+                        .extracting(Item::getId)
+                        .containsExactly(otherItem.getId(), PREDEFINED_ITEM_ID));
+    }
+
+    @Test
+    void gettingItemsByIdsWithFieldsReturnsOnlyTheRequestedItemsAndFields() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "?ids=" + PREDEFINED_ITEM_ID + ",NOTAVAILABLE001&fields=id,price")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(PREDEFINED_ITEM_ID)
+                .jsonPath("$[0].price").isEqualTo(PREDEFINED_ITEM_PRICE)
+                .jsonPath("$[0].description").doesNotExist();
+    }
+
+    @Test
+    void gettingItemsByIdsWithUnknownFieldsReturnsHttp400() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "?ids=" + PREDEFINED_ITEM_ID + "&fields=id,colour")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void gettingTooManyItemsByIdsReturnsHttp400() {
+        String tooManyIds = IntStream.rangeClosed(0, ItemsHandler.MAX_IDS_PER_REQUEST)
+                .mapToObj(i -> "ITMID" + i)
+                .collect(Collectors.joining(","));
+
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path(ITEMS_ENDPOINT_V2).queryParam("ids", tooManyIds).build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void gettingPriceStatsReturnsHttp200AndStatsOverAllItems() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/stats?percentiles=50,100&buckets=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(5)
+                .jsonPath("$.min").isEqualTo(PREDEFINED_ITEM_PRICE)
+                .jsonPath("$.max").isEqualTo(7249.99)
+                .jsonPath("$.mean").isEqualTo((4999.00 + 2399.99 + 7249.99 + 699.99 + PREDEFINED_ITEM_PRICE) / 5)
+                .jsonPath("$.percentiles.p50").isEqualTo(2399.99)
+                .jsonPath("$.percentiles.p100").isEqualTo(7249.99)
+                .jsonPath("$.histogram.length()").isEqualTo(2)
+                .jsonPath("$.histogram[0].count").isEqualTo(3)
+                .jsonPath("$.histogram[1].count").isEqualTo(2)
+                .jsonPath("$.histogram[1].upperBound").isEqualTo(7249.99);
+    }
+
+    @Test
+    void gettingPriceStatsByDescriptionPrefixOnlyCountsMatchingItems() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/stats?q=Santa Cruz")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(1)
+                .jsonPath("$.percentiles.p99").isEqualTo(7249.99)
+                .jsonPath("$.histogram[0].count").isEqualTo(1);
+    }
+
+    @Test
+    void gettingPriceStatsWithInvalidBucketsReturnsHttp400() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/stats?buckets=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void gettingPriceStatsWithRepeatedPercentilesReturnsEachOnce() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/stats?percentiles=50,50,50.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.percentiles.length()").isEqualTo(1)
+                .jsonPath("$.percentiles.p50").isEqualTo(2399.99);
+    }
+
+    @Test
+    void gettingPriceStatsWithTooManyPercentilesReturnsHttp400() {
+        String tooManyPercentiles = IntStream.rangeClosed(1, ItemPriceStatistics.MAX_PERCENTILES + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/stats?percentiles=" + tooManyPercentiles)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void gettingAllItemsWithFieldsReturnsHttp200AndOnlyTheRequestedFields() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "?fields=id,price")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(createSampleItems().size())
+                .jsonPath("$[*].id").isNotEmpty()
+                .jsonPath("$[*].price").isNotEmpty()
+                .jsonPath("$[*].description").isEmpty();
+    }
+
+    @Test
+    void gettingSpecificItemWithFieldsReturnsHttp200AndOnlyTheRequestedFields() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}?fields=price"), PREDEFINED_ITEM_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.price").isEqualTo(PREDEFINED_ITEM_PRICE)
+                .jsonPath("$.id").doesNotExist()
+                .jsonPath("$.description").doesNotExist();
+    }
+
+    @Test
+    void gettingItemsWithUnknownFieldReturnsHttp400() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "?fields=id,weight")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void searchingItemsByExactDescriptionReturnsHttp200AndMatchingItems() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/search?q={query}", PREDEFINED_ITEM_DESCRIPTION)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class)
+                .hasSize(1)
+                .contains(new Item(PREDEFINED_ITEM_ID, PREDEFINED_ITEM_DESCRIPTION, PREDEFINED_ITEM_PRICE));
+    }
+
+    @Test
+    void searchingItemsByDescriptionPrefixReturnsHttp200AndMatchingItems() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/search?q={query}&mode=prefix", "S")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void searchingItemsWithUnknownModeReturnsHttp400() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/search?q={query}&mode=fuzzy", "S")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void gettingAllItemsAsSmileReturnsHttp200AndAllItems() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2)
+                .accept(CodecConfig.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CodecConfig.APPLICATION_SMILE)
+                .expectBody(new ParameterizedTypeReference<List<Item>>() {
+                })
+                .consumeWith(response -> assertThat(response.getResponseBody())
+                        .usingElementComparatorIgnoringFields("id")
+                        .containsExactlyInAnyOrderElementsOf(createSampleItems()));
+    }
+
+    @Test
+    void gettingSpecificItemAsSmileReturnsHttp200AndTheItem() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .accept(CodecConfig.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CodecConfig.APPLICATION_SMILE)
+                .expectBody(Item.class)
+                .isEqualTo(new Item(PREDEFINED_ITEM_ID, PREDEFINED_ITEM_DESCRIPTION, PREDEFINED_ITEM_PRICE));
+    }
+
+    @Test
+    void gettingSpecificItemWithCurrentETagReturnsHttp304WithoutBody() {
+        String eTag = webTestClient.get().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(Item.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void gettingAllItemsWithOutdatedETagReturnsHttp200() {
+        String eTag = webTestClient.get().uri(ITEMS_ENDPOINT_V2)
+                .exchange()
+                .returnResult(Item.class)
+                .getResponseHeaders().getETag();
+        itemRepository.save(new Item(null, "Propain Hugene", 2999.00)).block();
+
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBodyList(Item.class)
+                .hasSize(createSampleItems().size() + 1);
+    }
+
     @Test
     void gettingSpecificNonExistingItemByIdReturnsHttp404() {
         webTestClient.get().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), "NOTAVAILABLE001")
@@ -89,6 +383,40 @@ class ItemsHandlerTest {
                 .expectHeader().exists("Location");
     }
 
+    @Test
+    void postingItemBatchAsJsonArrayReturnsHttp201AndTheCreatedItemIdsInRequestOrder() {
+        List<Item> items = Arrays.asList(
+                new Item("BATCHITM001", "Propain Tyee 2020 29", 3499.00),
+                new Item("BATCHITM002", "Propain Hugene", 2999.00));
+        webTestClient.post().uri(ITEMS_ENDPOINT_V2 + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(items)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$[0]").isEqualTo("BATCHITM001")
+                .jsonPath("$[1]").isEqualTo("BATCHITM002");
+
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2)
+                .exchange()
+                .expectBodyList(Item.class)
+                .hasSize(createSampleItems().size() + items.size());
+    }
+
+    @Test
+    void postingItemBatchAsNdjsonReturnsHttp201AndGeneratedItemIds() {
+        String ndjsonItems = "{\"description\":\"Propain Tyee 2020 29\",\"price\":3499.0}\n" +
+                "{\"description\":\"Propain Hugene\",\"price\":2999.0}\n";
+        webTestClient.post().uri(ITEMS_ENDPOINT_V2 + "/batch")
+                .contentType(CodecConfig.APPLICATION_NDJSON)
+                .bodyValue(ndjsonItems)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0]").isNotEmpty();
+    }
+
     @Test
     void deletingItemReturns204AndEmptyResponseBody() {
         webTestClient.delete().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), PREDEFINED_ITEM_ID)
@@ -111,6 +439,35 @@ class ItemsHandlerTest {
                 .jsonPath("$.price").isEqualTo(newItemPrice);
     }
 
+    @Test
+    void updatingItemWithCurrentETagReturnsHttp200AndANewETag() {
+        String eTag = webTestClient.get().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .exchange()
+                .returnResult(Item.class)
+                .getResponseHeaders().getETag();
+        Item item = new Item(null, PREDEFINED_ITEM_DESCRIPTION, 42.42);
+
+        webTestClient.put().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .body(Mono.just(item), Item.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, newETag -> assertThat(newETag).isNotEqualTo(eTag));
+    }
+
+    @Test
+    void updatingItemWithOutdatedETagReturnsHttp412() {
+        Item item = new Item(null, PREDEFINED_ITEM_DESCRIPTION, 42.42);
+
+        webTestClient.put().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"outdated\"")
+                .body(Mono.just(item), Item.class)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
     @Test
     void updatingNonExistingItemByIdReturnsHttp404() {
         Item item = new Item(null, PREDEFINED_ITEM_DESCRIPTION, 123);
@@ -121,11 +478,28 @@ class ItemsHandlerTest {
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    void requestAndRepositoryMetricsAreExposedForPrometheus() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2.concat("/{itemId}"), PREDEFINED_ITEM_ID)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(metrics -> assertThat(metrics)
+                        .contains("uri=\"/v2/items/{itemId}\"")
+                        .contains("items_repository_calls_seconds_bucket{")
+                        .contains("method=\"findById\""));
+    }
+
     private void setupTestDatabase() {
         itemRepository.deleteAll().thenMany(Flux.fromIterable(createSampleItems()))
                 .flatMap(itemRepository::save)
                 .doOnNext(item -> System.out.println("Inserted Test Item: " + item))
                 .blockLast(); // Block until onComplete to avoid premature test execution
+        itemCache.evictAll(); // Repository was changed behind the cache's back
     }
 
     private List<Item> createSampleItems() {
@@ -0,0 +1,96 @@
+package de.maik.reactivespring.server.item.boundary.v2;
+
+import de.maik.reactivespring.server.item.control.ItemCache;
+import de.maik.reactivespring.server.item.control.ItemChangeFeed;
+import de.maik.reactivespring.server.item.control.ItemPager;
+import de.maik.reactivespring.server.item.control.ItemPriceRangePager;
+import de.maik.reactivespring.server.item.control.ItemPriceStatistics;
+import de.maik.reactivespring.server.item.control.ItemResponseCache;
+import de.maik.reactivespring.server.item.control.ItemUpdater;
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against a stubbed item cache with a burst of two reads and two writes per client, and practically no refill.
+ * Requests come without a remote address, so all requests without a known API key count as one client.
+ */
+class ItemsRateLimitsTest {
+
+    private static final String ITEMS_ENDPOINT_V2 = "/v2/items";
+    private static final String API_KEY_HEADER = "X-API-Key";
+    private static final Item ITEM = new Item("ITMID001", "Rondo Ruut ST", 2399.99);
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.deleteById(ITEM.getId())).thenReturn(Mono.empty());
+        ItemCache itemCache = mock(ItemCache.class);
+        when(itemCache.findById(ITEM.getId())).thenReturn(Mono.just(ITEM));
+        ItemsHandler itemsHandler = new ItemsHandler(itemRepository, itemCache, mock(ItemPager.class),
+                mock(ItemUpdater.class), mock(ItemChangeFeed.class), mock(ItemResponseCache.class),
+                mock(ItemPriceStatistics.class), mock(ItemPriceRangePager.class), 16, 1, 1);
+        ItemsRateLimits itemsRateLimits = new ItemsRateLimits(true, API_KEY_HEADER,
+                new String[]{"client", "other client"}, 100,
+                0.01, 2, 0.01, 2, 0.01, 1);
+        webTestClient = WebTestClient.bindToRouterFunction(new ItemsRouter().itemsRoute(itemsHandler, itemsRateLimits))
+                .build();
+    }
+
+    @Test
+    void requestsBeyondBurstAreRejectedWithRetryAfter() {
+        getItem("client").expectStatus().isOk();
+        getItem("client").expectStatus().isOk();
+
+        getItem("client")
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "100");
+    }
+
+    @Test
+    void clientsAreLimitedByTheirApiKey() {
+        getItem("client").expectStatus().isOk();
+        getItem("client").expectStatus().isOk();
+
+        getItem("other client").expectStatus().isOk();
+    }
+
+    @Test
+    void unknownApiKeysAreLimitedByRemoteAddress() {
+        getItem("made up key").expectStatus().isOk();
+        getItem("another made up key").expectStatus().isOk();
+
+        getItem("yet another made up key").expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        getItem("client").expectStatus().isOk();
+    }
+
+    @Test
+    void readsAndWritesAreLimitedSeparately() {
+        getItem("client").expectStatus().isOk();
+        getItem("client").expectStatus().isOk();
+
+        webTestClient.delete().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .header(API_KEY_HEADER, "client")
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    private WebTestClient.ResponseSpec getItem(String apiKey) {
+        return webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .header(API_KEY_HEADER, apiKey)
+                .exchange();
+    }
+}
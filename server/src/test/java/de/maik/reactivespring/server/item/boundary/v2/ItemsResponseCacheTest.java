@@ -0,0 +1,141 @@
+package de.maik.reactivespring.server.item.boundary.v2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.maik.reactivespring.server.item.control.ItemCache;
+import de.maik.reactivespring.server.item.control.ItemChangeFeed;
+import de.maik.reactivespring.server.item.control.ItemETags;
+import de.maik.reactivespring.server.item.control.ItemPager;
+import de.maik.reactivespring.server.item.control.ItemPriceRangePager;
+import de.maik.reactivespring.server.item.control.ItemPriceStatistics;
+import de.maik.reactivespring.server.item.control.ItemResponseCache;
+import de.maik.reactivespring.server.item.control.ItemUpdater;
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.StreamUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against a stubbed item cache, counting how often an item is actually looked up and serialized
+ */
+class ItemsResponseCacheTest {
+
+    private static final String ITEMS_ENDPOINT_V2 = "/v2/items";
+    private static final Item ITEM = new Item("ITMID001", "Rondo Ruut ST", 2399.99);
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private AtomicInteger lookups = new AtomicInteger();
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.deleteById(ITEM.getId())).thenReturn(Mono.empty());
+        ItemCache itemCache = mock(ItemCache.class);
+        when(itemCache.findById(ITEM.getId()))
+                .thenReturn(Mono.just(ITEM).doOnSubscribe(subscription -> lookups.incrementAndGet()));
+        ItemResponseCache itemResponseCache = new ItemResponseCache(objectMapper, new SimpleMeterRegistry(), true,
+                1024 * 1024, 1024 * 1024, Duration.ofSeconds(60));
+        ItemsHandler itemsHandler = new ItemsHandler(itemRepository, itemCache, mock(ItemPager.class),
+                mock(ItemUpdater.class), mock(ItemChangeFeed.class), itemResponseCache, mock(ItemPriceStatistics.class),
+                mock(ItemPriceRangePager.class), 16, 1, 1);
+        webTestClient = WebTestClient.bindToRouterFunction(new ItemsRouter().itemsRoute(itemsHandler,
+                new ItemsRateLimits(false, "X-API-Key", new String[0], 1, 1, 1, 1, 1, 1, 1))).build();
+    }
+
+    @Test
+    void itemIsSerializedOnceAndServedFromCacheAfterwards() {
+        for (int i = 0; i < 3; i++) {
+            webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals(HttpHeaders.ETAG, ItemETags.of(ITEM))
+                    .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .expectBody(Item.class).isEqualTo(ITEM);
+        }
+
+        assertThat(lookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    void clientsAcceptingGzipGetTheCompressedResponse() throws IOException {
+        byte[] body = webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectBody().returnResult().getResponseBody();
+
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(objectMapper.readValue(StreamUtils.copyToByteArray(gzipInputStream), Item.class))
+                    .isEqualTo(ITEM);
+        }
+    }
+
+    @Test
+    void clientsRefusingGzipGetTheUncompressedResponse() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0, *")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectBody(Item.class).isEqualTo(ITEM);
+    }
+
+    @Test
+    void acceptEncodingIsMatchedByCodingAndQuality() {
+        assertThat(ItemsHandler.acceptsGzip(Collections.singletonList("gzip"))).isTrue();
+        assertThat(ItemsHandler.acceptsGzip(Collections.singletonList("deflate;q=1.0, GZIP;q=0.5"))).isTrue();
+        assertThat(ItemsHandler.acceptsGzip(Collections.singletonList("*"))).isTrue();
+        assertThat(ItemsHandler.acceptsGzip(Collections.singletonList("gzip;q=0"))).isFalse();
+        assertThat(ItemsHandler.acceptsGzip(Collections.singletonList("gzip;q=0.000, *"))).isFalse();
+        assertThat(ItemsHandler.acceptsGzip(Collections.singletonList("*;q=0"))).isFalse();
+        assertThat(ItemsHandler.acceptsGzip(Collections.singletonList("notgzip, deflate"))).isFalse();
+        assertThat(ItemsHandler.acceptsGzip(Collections.emptyList())).isFalse();
+    }
+
+    @Test
+    void cachedResponseIsAnsweredWith304IfClientCopyIsUpToDate() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .ifNoneMatch(ItemETags.of(ITEM))
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void deletingItemEvictsItsCachedResponse() {
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.delete().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.get().uri(ITEMS_ENDPOINT_V2 + "/" + ITEM.getId())
+                .exchange()
+                .expectStatus().isOk();
+
+        assertThat(lookups.get()).isEqualTo(2);
+    }
+}
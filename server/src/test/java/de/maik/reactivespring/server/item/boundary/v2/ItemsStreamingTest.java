@@ -0,0 +1,99 @@
+package de.maik.reactivespring.server.item.boundary.v2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.maik.reactivespring.server.config.CodecConfig;
+import de.maik.reactivespring.server.item.control.ItemCache;
+import de.maik.reactivespring.server.item.control.ItemChangeFeed;
+import de.maik.reactivespring.server.item.control.ItemPager;
+import de.maik.reactivespring.server.item.control.ItemPriceRangePager;
+import de.maik.reactivespring.server.item.control.ItemPriceStatistics;
+import de.maik.reactivespring.server.item.control.ItemResponseCache;
+import de.maik.reactivespring.server.item.control.ItemUpdater;
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against a stubbed repository, as the point is the server's buffering behaviour rather than MongoDB
+ */
+class ItemsStreamingTest {
+
+    private static final String ITEMS_ENDPOINT_V2 = "/v2/items";
+    private static final int PREFETCH = 16;
+    private static final int NUMBER_OF_ITEMS = 100_000;
+    // The in-memory client side may prefetch up to one default sized queue on top of the server's prefetch
+    private static final long MAX_ITEMS_READ_AHEAD = PREFETCH + Queues.SMALL_BUFFER_SIZE;
+
+    private WebTestClient webTestClient;
+    private AtomicLong itemsReadFromRepository = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findAll()).thenReturn(Flux.range(0, NUMBER_OF_ITEMS)
+                .map(i -> new Item("ITMID" + i, "Streamed item", 1.99))
+                .doOnNext(item -> itemsReadFromRepository.incrementAndGet()));
+        ItemsHandler itemsHandler = new ItemsHandler(itemRepository, mock(ItemCache.class), mock(ItemPager.class),
+                mock(ItemUpdater.class), mock(ItemChangeFeed.class), mock(ItemResponseCache.class),
+                mock(ItemPriceStatistics.class), mock(ItemPriceRangePager.class), PREFETCH, 1, 1);
+        CodecCustomizer codecCustomizer = new CodecConfig().ndjsonCodecCustomizer(new ObjectMapper());
+        webTestClient = WebTestClient.bindToRouterFunction(new ItemsRouter().itemsRoute(itemsHandler,
+                new ItemsRateLimits(false, "X-API-Key", new String[0], 1, 1, 1, 1, 1, 1, 1)))
+                .handlerStrategies(HandlerStrategies.builder().codecs(codecCustomizer::customize).build())
+                .configureClient()
+                .codecs(codecCustomizer::customize)
+                .build();
+    }
+
+    @Test
+    void streamingAllItemsAsNdjsonEmitsItemsOneByOne() {
+        Flux<Item> itemsFlux = webTestClient.get().uri(ITEMS_ENDPOINT_V2)
+                .accept(CodecConfig.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CodecConfig.APPLICATION_NDJSON)
+                .returnResult(Item.class)
+                .getResponseBody();
+
+        StepVerifier.create(itemsFlux.take(3))
+                .expectNextMatches(item -> item.getId().equals("ITMID0"))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void slowSubscriberDoesNotMakeServerReadAheadOfDemand() {
+        Flux<Item> itemsFlux = webTestClient.get().uri(ITEMS_ENDPOINT_V2)
+                .accept(CodecConfig.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Item.class)
+                .getResponseBody();
+
+        StepVerifier.create(itemsFlux, 0)
+                .thenRequest(1)
+                .expectNextCount(1)
+                .thenAwait(Duration.ofMillis(200)) // Give an eager server plenty of time to run ahead
+                .then(() -> assertThat(itemsReadFromRepository.get()).isLessThanOrEqualTo(MAX_ITEMS_READ_AHEAD))
+                .thenRequest(10)
+                .expectNextCount(10)
+                .thenAwait(Duration.ofMillis(200))
+                .then(() -> assertThat(itemsReadFromRepository.get()).isLessThanOrEqualTo(MAX_ITEMS_READ_AHEAD + 10))
+                .thenCancel()
+                .verify();
+    }
+}
@@ -0,0 +1,132 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItemCacheTest {
+
+    private static final String ITEM_ID = "ITMID001";
+    private static final Item ITEM = new Item(ITEM_ID, "Rondo Ruut ST", 2399.99);
+
+    private ItemRepository itemRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private ItemCache itemCache;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findById(ITEM_ID)).thenReturn(Mono.just(ITEM));
+        when(itemRepository.findById("NOTAVAILABLE001")).thenReturn(Mono.empty());
+        meterRegistry = new SimpleMeterRegistry();
+        itemCache = new ItemCache(itemRepository, meterRegistry, 1, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void secondLookupIsServedFromCache() {
+        StepVerifier.create(itemCache.findById(ITEM_ID)).expectNext(ITEM).verifyComplete();
+        StepVerifier.create(itemCache.findById(ITEM_ID)).expectNext(ITEM).verifyComplete();
+
+        verify(itemRepository, times(1)).findById(ITEM_ID);
+        assertThat(cacheGets("miss")).isEqualTo(1);
+        assertThat(cacheGets("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void unknownItemsAreNotCached() {
+        StepVerifier.create(itemCache.findById("NOTAVAILABLE001")).verifyComplete();
+        StepVerifier.create(itemCache.findById("NOTAVAILABLE001")).verifyComplete();
+
+        verify(itemRepository, times(2)).findById("NOTAVAILABLE001");
+    }
+
+    @Test
+    void evictedItemIsLoadedFromRepositoryAgain() {
+        itemCache.findById(ITEM_ID).block();
+        itemCache.evict(ITEM_ID);
+        itemCache.findById(ITEM_ID).block();
+
+        verify(itemRepository, times(2)).findById(ITEM_ID);
+    }
+
+    @Test
+    void putReplacesCachedItem() {
+        Item updatedItem = new Item(ITEM_ID, "Rondo Ruut ST", 42.42);
+        itemCache.findById(ITEM_ID).block();
+        itemCache.put(updatedItem);
+
+        StepVerifier.create(itemCache.findById(ITEM_ID)).expectNext(updatedItem).verifyComplete();
+    }
+
+    @Test
+    void exceedingMaximumSizeCountsAsEviction() {
+        itemCache.put(ITEM);
+        itemCache.put(new Item("ITMID002", "Santa Cruz Megatower", 7249.99));
+        itemCache.nativeCache().cleanUp(); // Size based eviction runs asynchronously
+
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", ItemCache.CACHE_NAME).functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void itemLoadedWhileItWasUpdatedIsNotCached() {
+        Item updatedItem = new Item(ITEM_ID, "Rondo Ruut ST", 42.42);
+        TestPublisher<Item> slowLoad = TestPublisher.create();
+        when(itemRepository.findById(ITEM_ID)).thenReturn(slowLoad.mono());
+        StepVerifier staleRead = StepVerifier.create(itemCache.findById(ITEM_ID))
+                .expectNext(ITEM).expectComplete().verifyLater();
+
+        itemCache.put(updatedItem);
+        slowLoad.emit(ITEM);
+        staleRead.verify();
+
+        StepVerifier.create(itemCache.findById(ITEM_ID)).expectNext(updatedItem).verifyComplete();
+    }
+
+    @Test
+    void itemLoadedWhileItWasDeletedIsNotCached() {
+        TestPublisher<Item> slowLoad = TestPublisher.create();
+        when(itemRepository.findById(ITEM_ID)).thenReturn(slowLoad.mono(), Mono.empty());
+        StepVerifier staleRead = StepVerifier.create(itemCache.findById(ITEM_ID))
+                .expectNext(ITEM).expectComplete().verifyLater();
+
+        itemCache.evict(ITEM_ID);
+        slowLoad.emit(ITEM);
+        staleRead.verify();
+
+        StepVerifier.create(itemCache.findById(ITEM_ID)).verifyComplete();
+    }
+
+    @Test
+    void itemLoadedWhileAnotherItemWasUpdatedIsCached() {
+        TestPublisher<Item> slowLoad = TestPublisher.create();
+        when(itemRepository.findById(ITEM_ID)).thenReturn(slowLoad.mono());
+        StepVerifier read = StepVerifier.create(itemCache.findById(ITEM_ID))
+                .expectNext(ITEM).expectComplete().verifyLater();
+
+        itemCache.evict("ITMID002");
+        slowLoad.emit(ITEM);
+        read.verify();
+
+        StepVerifier.create(itemCache.findById(ITEM_ID)).expectNext(ITEM).verifyComplete();
+        verify(itemRepository, times(1)).findById(ITEM_ID);
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", ItemCache.CACHE_NAME).tag("result", result)
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,92 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Uses a processor in place of the MongoDB change stream, which requires a replica set
+ */
+class ItemChangeFeedTest {
+
+    private static final int SUBSCRIBER_BUFFER_SIZE = 10;
+
+    private DirectProcessor<ItemChange> changeStream;
+    private AtomicInteger changeStreamSubscriptions;
+    private ItemChangeFeed itemChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        changeStream = DirectProcessor.create();
+        changeStreamSubscriptions = new AtomicInteger();
+        itemChangeFeed = new ItemChangeFeed(
+                changeStream.doOnSubscribe(subscription -> changeStreamSubscriptions.incrementAndGet()),
+                SUBSCRIBER_BUFFER_SIZE);
+    }
+
+    @Test
+    void allSubscribersShareASingleChangeStream() {
+        StepVerifier firstSubscriber = StepVerifier.create(itemChangeFeed.changes())
+                .expectNextMatches(change -> change.getItemId().equals("ITMID1"))
+                .thenCancel()
+                .verifyLater();
+        StepVerifier secondSubscriber = StepVerifier.create(itemChangeFeed.changes())
+                .expectNextMatches(change -> change.getItemId().equals("ITMID1"))
+                .thenCancel()
+                .verifyLater();
+
+        changeStream.onNext(insertOf(1));
+
+        firstSubscriber.verify();
+        secondSubscriber.verify();
+        assertThat(changeStreamSubscriptions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void slowSubscriberDoesNotStallOthersAndOnlyKeepsNewestChanges() {
+        int numberOfChanges = 1000;
+        StepVerifier fastSubscriber = StepVerifier.create(itemChangeFeed.changes())
+                .expectNextCount(numberOfChanges)
+                .thenCancel()
+                .verifyLater();
+        List<ItemChange> changesOfSlowSubscriber = new ArrayList<>();
+        BaseSubscriber<ItemChange> slowSubscriber = new BaseSubscriber<ItemChange>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // Don't request anything until all changes have been published
+            }
+
+            @Override
+            protected void hookOnNext(ItemChange change) {
+                changesOfSlowSubscriber.add(change);
+            }
+        };
+        itemChangeFeed.changes().subscribe(slowSubscriber);
+
+        Flux.range(0, numberOfChanges).map(ItemChangeFeedTest::insertOf).subscribe(changeStream::onNext);
+        fastSubscriber.verify();
+        slowSubscriber.request(numberOfChanges);
+        slowSubscriber.dispose();
+
+        assertThat(changesOfSlowSubscriber)
+                .extracting(ItemChange::getItemId)
+                .hasSize(SUBSCRIBER_BUFFER_SIZE)
+                .startsWith("ITMID" + (numberOfChanges - SUBSCRIBER_BUFFER_SIZE))
+                .endsWith("ITMID" + (numberOfChanges - 1));
+    }
+
+    private static ItemChange insertOf(int i) {
+        return new ItemChange("insert", "ITMID" + i, new Item("ITMID" + i, "Changed item", 1.99));
+    }
+}
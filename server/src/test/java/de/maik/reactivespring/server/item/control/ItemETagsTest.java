@@ -0,0 +1,39 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemETagsTest {
+
+    private static final Item ITEM = new Item("ITMID001", "Rondo Ruut ST", 2399.99);
+    private static final Item OTHER_ITEM = new Item("ITMID002", "Santa Cruz Megatower", 7249.99);
+
+    @Test
+    void tagIsQuotedAndChangesWithContent() {
+        String eTag = ItemETags.of(ITEM);
+
+        assertThat(eTag).startsWith("\"").endsWith("\"");
+        assertThat(eTag).isEqualTo(ItemETags.of(new Item("ITMID001", "Rondo Ruut ST", 2399.99)));
+        assertThat(eTag).isNotEqualTo(ItemETags.of(new Item("ITMID001", "Rondo Ruut ST", 2399.98)));
+    }
+
+    @Test
+    void listingTagChangesWithOrder() {
+        assertThat(ItemETags.of(Arrays.asList(ITEM, OTHER_ITEM)))
+                .isNotEqualTo(ItemETags.of(Arrays.asList(OTHER_ITEM, ITEM)));
+    }
+
+    @Test
+    void ifMatchAcceptsAnyOfSeveralTagsAndWildcard() {
+        String eTag = ItemETags.of(ITEM);
+
+        assertThat(ItemETags.matches(Collections.singletonList("\"outdated\", " + eTag), eTag)).isTrue();
+        assertThat(ItemETags.matches(Collections.singletonList("*"), eTag)).isTrue();
+        assertThat(ItemETags.matches(Collections.singletonList("W/" + eTag), eTag)).isFalse();
+    }
+}
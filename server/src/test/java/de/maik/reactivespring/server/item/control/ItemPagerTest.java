@@ -0,0 +1,80 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemPagerTest {
+
+    private static final String OBJECT_ID = "5ec3a2a4d4b8c26b1a2f1e01";
+    private static final Item STRING_ID_ITEM = new Item("SMPLITM001", "Generic sample item", 1.99);
+    private static final Item OBJECT_ID_ITEM = new Item(OBJECT_ID, "Rondo Ruut ST", 2399.99);
+    private static final Item OTHER_OBJECT_ID_ITEM = new Item("5ec3a2a4d4b8c26b1a2f1e02", "Santa Cruz Megatower", 7249.99);
+
+    private ItemRepository itemRepository;
+    private ItemPager itemPager;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        itemPager = new ItemPager(itemRepository);
+    }
+
+    @Test
+    void firstPageCarriesTokenOfItsLastItemIfThereAreMoreItems() {
+        when(itemRepository.findAllByOrderByIdAsc(any()))
+                .thenReturn(Flux.just(STRING_ID_ITEM, OBJECT_ID_ITEM, OTHER_OBJECT_ID_ITEM));
+
+        StepVerifier.create(itemPager.getPage(null, 2))
+                .assertNext(page -> {
+                    assertThat(page.getItems()).containsExactly(STRING_ID_ITEM, OBJECT_ID_ITEM);
+                    assertThat(ItemPager.decode(page.getContinuationToken())).isEqualTo(OBJECT_ID);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void lastPageHasNoContinuationToken() {
+        when(itemRepository.findByIdGreaterThanOrderByIdAsc(eq(new ObjectId(OBJECT_ID)), any()))
+                .thenReturn(Flux.just(OTHER_OBJECT_ID_ITEM));
+
+        StepVerifier.create(itemPager.getPage(ItemPager.encode(OBJECT_ID), 2))
+                .assertNext(page -> {
+                    assertThat(page.getItems()).containsExactly(OTHER_OBJECT_ID_ITEM);
+                    assertThat(page.hasNextPage()).isFalse();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void pageAfterStringIdAlsoQueriesObjectIds() {
+        when(itemRepository.findByStringIdGreaterThan(eq(STRING_ID_ITEM.getId()), any()))
+                .thenReturn(Flux.just(OBJECT_ID_ITEM));
+
+        StepVerifier.create(itemPager.getPage(ItemPager.encode(STRING_ID_ITEM.getId()), 2))
+                .assertNext(page -> assertThat(page.getItems()).containsExactly(OBJECT_ID_ITEM))
+                .verifyComplete();
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        StepVerifier.create(itemPager.getPage("not base64!", 2))
+                .verifyError(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tooLargePageSizeIsRejected() {
+        StepVerifier.create(itemPager.getPage(null, ItemPager.MAX_PAGE_SIZE + 1))
+                .verifyError(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemPriceRangePagerTest {
+
+    private static final String OBJECT_ID = "5ec3a2a4d4b8c26b1a2f1e01";
+    private static final Item STRING_ID_ITEM = new Item("SMPLITM001", "Generic sample item", 1.99);
+    private static final Item OBJECT_ID_ITEM = new Item(OBJECT_ID, "Rondo Ruut ST", 2399.99);
+    private static final Item OTHER_OBJECT_ID_ITEM = new Item("5ec3a2a4d4b8c26b1a2f1e02", "Santa Cruz Megatower", 7249.99);
+
+    private ItemRepository itemRepository;
+    private ItemPriceRangePager itemPriceRangePager;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        itemPriceRangePager = new ItemPriceRangePager(itemRepository);
+    }
+
+    @Test
+    void firstPageCarriesTokenOfPriceAndIdOfItsLastItem() {
+        when(itemRepository.findByPriceBetweenOrderByPriceAscIdAsc(eq(Range.closed(1.0, 10_000.0)), any()))
+                .thenReturn(Flux.just(STRING_ID_ITEM, OBJECT_ID_ITEM, OTHER_OBJECT_ID_ITEM));
+
+        StepVerifier.create(itemPriceRangePager.getPage(1.0, 10_000.0, null, 2))
+                .assertNext(page -> {
+                    assertThat(page.getItems()).containsExactly(STRING_ID_ITEM, OBJECT_ID_ITEM);
+                    assertThat(ItemPager.decode(page.getContinuationToken())).isEqualTo("2399.99:" + OBJECT_ID);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void nextPageContinuesAfterPriceAndIdUpToMaximumPrice() {
+        when(itemRepository.findByPriceAfterObjectId(eq(2399.99), eq(new ObjectId(OBJECT_ID)), eq(10_000.0), any()))
+                .thenReturn(Flux.just(OTHER_OBJECT_ID_ITEM));
+
+        StepVerifier.create(itemPriceRangePager.getPage(1.0, 10_000.0, ItemPager.encode("2399.99:" + OBJECT_ID), 2))
+                .assertNext(page -> {
+                    assertThat(page.getItems()).containsExactly(OTHER_OBJECT_ID_ITEM);
+                    assertThat(page.hasNextPage()).isFalse();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void pageAfterStringIdWithoutMaximumPriceIsUnbounded() {
+        when(itemRepository.findByPriceAfterStringId(eq(1.99), eq(STRING_ID_ITEM.getId()),
+                eq(Double.POSITIVE_INFINITY), any()))
+                .thenReturn(Flux.just(OBJECT_ID_ITEM));
+
+        StepVerifier.create(itemPriceRangePager.getPage(null, null, ItemPager.encode("1.99:SMPLITM001"), 2))
+                .assertNext(page -> assertThat(page.getItems()).containsExactly(OBJECT_ID_ITEM))
+                .verifyComplete();
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        when(itemRepository.findByPriceAfterStringId(anyDouble(), any(), anyDouble(), any())).thenReturn(Flux.empty());
+
+        StepVerifier.create(itemPriceRangePager.getPage(null, null, ItemPager.encode("no price"), 2))
+                .verifyError(IllegalArgumentException.class);
+    }
+
+    @Test
+    void emptyRangeIsRejected() {
+        assertThatThrownBy(() -> itemPriceRangePager.getRange(100.0, 10.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
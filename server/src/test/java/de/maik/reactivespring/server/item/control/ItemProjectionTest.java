@@ -0,0 +1,32 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.entry;
+
+class ItemProjectionTest {
+
+    private static final Item ITEM = new Item("ITMID001", "Rondo Ruut ST", 2399.99);
+
+    @Test
+    void projectedItemContainsOnlyRequestedFieldsInRequestedOrder() {
+        ItemProjection projection = ItemProjection.of("price, id");
+
+        assertThat(projection.apply(ITEM)).containsExactly(
+                entry("price", 2399.99),
+                entry("id", "ITMID001"));
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ItemProjection.of("id,weight"));
+    }
+
+    @Test
+    void emptyFieldListIsRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ItemProjection.of(""));
+    }
+}
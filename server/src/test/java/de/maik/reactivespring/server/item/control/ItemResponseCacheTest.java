@@ -0,0 +1,135 @@
+package de.maik.reactivespring.server.item.control;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.maik.reactivespring.server.item.document.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StreamUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemResponseCacheTest {
+
+    private static final Item ITEM = new Item("ITMID001", "Rondo Ruut ST", 2399.99);
+    private static final String ITEM_KEY = ItemResponseCache.itemKey(ITEM.getId());
+    private static final String LISTING_KEY = ItemResponseCache.listingKey("all");
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private AtomicInteger loads;
+    private ItemResponseCache itemResponseCache;
+
+    @BeforeEach
+    void setUp() {
+        loads = new AtomicInteger();
+        itemResponseCache = new ItemResponseCache(objectMapper, new SimpleMeterRegistry(), true, 1024 * 1024,
+                1024 * 1024, Duration.ofSeconds(60));
+    }
+
+    @Test
+    void encodedResponseHoldsPlainAndGzippedJson() throws IOException {
+        EncodedResponse response = itemResponseCache.encode(ITEM, ItemETags.of(ITEM), Collections.emptyMap());
+
+        assertThat(objectMapper.readValue(response.getBody(), Item.class)).isEqualTo(ITEM);
+        assertThat(gunzip(response.getGzippedBody())).isEqualTo(response.getBody());
+        assertThat(response.getETag()).isEqualTo(ItemETags.of(ITEM));
+    }
+
+    @Test
+    void loadedResponseIsCachedButEmptyResultIsNot() {
+        StepVerifier.create(itemResponseCache.get(ITEM_KEY, load(ITEM))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(itemResponseCache.get(ITEM_KEY, load(ITEM))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(itemResponseCache.get("item:unknown", countedLoad(Mono.empty()))).verifyComplete();
+        StepVerifier.create(itemResponseCache.get("item:unknown", countedLoad(Mono.empty()))).verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void evictingItemAlsoEvictsListingsButNotOtherItems() {
+        Item otherItem = new Item("ITMID002", "Santa Cruz Megatower", 7249.99);
+        String otherItemKey = ItemResponseCache.itemKey(otherItem.getId());
+        itemResponseCache.get(ITEM_KEY, load(ITEM)).block();
+        itemResponseCache.get(otherItemKey, load(otherItem)).block();
+        itemResponseCache.get(LISTING_KEY, load(ITEM)).block();
+
+        itemResponseCache.evictItem(ITEM.getId());
+        itemResponseCache.get(ITEM_KEY, load(ITEM)).block();
+        itemResponseCache.get(otherItemKey, load(otherItem)).block();
+        itemResponseCache.get(LISTING_KEY, load(ITEM)).block();
+
+        assertThat(loads.get()).isEqualTo(5);
+    }
+
+    @Test
+    void responseLoadedWhileItemIsWrittenIsNotCached() {
+        TestPublisher<EncodedResponse> slowLoad = TestPublisher.create();
+        StepVerifier firstCaller = StepVerifier.create(itemResponseCache.get(ITEM_KEY, countedLoad(slowLoad.mono())))
+                .expectNextCount(1)
+                .expectComplete()
+                .verifyLater();
+
+        itemResponseCache.evictItem(ITEM.getId());
+        slowLoad.emit(itemResponseCache.encode(ITEM, null, Collections.emptyMap()));
+        firstCaller.verify();
+        itemResponseCache.get(ITEM_KEY, load(ITEM)).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void responseLoadedWhileAnotherItemIsWrittenIsCached() {
+        TestPublisher<EncodedResponse> slowLoad = TestPublisher.create();
+        StepVerifier firstCaller = StepVerifier.create(itemResponseCache.get(ITEM_KEY, countedLoad(slowLoad.mono())))
+                .expectNextCount(1)
+                .expectComplete()
+                .verifyLater();
+
+        itemResponseCache.evictItem("ITMID002");
+        slowLoad.emit(itemResponseCache.encode(ITEM, null, Collections.emptyMap()));
+        firstCaller.verify();
+        itemResponseCache.get(ITEM_KEY, load(ITEM)).block();
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void listingLoadedWhileAnyItemIsWrittenIsNotCached() {
+        TestPublisher<EncodedResponse> slowLoad = TestPublisher.create();
+        StepVerifier firstCaller = StepVerifier.create(itemResponseCache.get(LISTING_KEY, countedLoad(slowLoad.mono())))
+                .expectNextCount(1)
+                .expectComplete()
+                .verifyLater();
+
+        itemResponseCache.evictItem("ITMID002");
+        slowLoad.emit(itemResponseCache.encode(ITEM, null, Collections.emptyMap()));
+        firstCaller.verify();
+        itemResponseCache.get(LISTING_KEY, load(ITEM)).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Mono<EncodedResponse> load(Item item) {
+        return countedLoad(Mono.fromSupplier(() -> itemResponseCache.encode(item, null, Collections.emptyMap())));
+    }
+
+    private Mono<EncodedResponse> countedLoad(Mono<EncodedResponse> loader) {
+        return loader.doOnSubscribe(subscription -> loads.incrementAndGet());
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return StreamUtils.copyToByteArray(gzipInputStream);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItemUpdaterTest {
+
+    private static final String ITEM_ID = "ITMID001";
+    private static final Item CURRENT_ITEM = new Item(ITEM_ID, "Rondo Ruut ST", 2399.99);
+    private static final Item NEW_VALUES = new Item(null, "Rondo Ruut ST", 1999.99);
+    private static final Item UPDATED_ITEM = new Item(ITEM_ID, "Rondo Ruut ST", 1999.99);
+
+    private ItemRepository itemRepository;
+    private ItemCache itemCache;
+    private ItemUpdater itemUpdater;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        itemCache = mock(ItemCache.class);
+        when(itemRepository.findById(ITEM_ID)).thenReturn(Mono.just(CURRENT_ITEM));
+        when(itemRepository.existsById(ITEM_ID)).thenReturn(Mono.just(true));
+        itemUpdater = new ItemUpdater(itemRepository, itemCache, mock(ItemResponseCache.class),
+                new SimpleMeterRegistry(), false, Duration.ZERO);
+    }
+
+    @Test
+    void updateWithoutPreconditionIsUnconditional() {
+        when(itemRepository.updateDescriptionAndPrice(ITEM_ID, "Rondo Ruut ST", 1999.99))
+                .thenReturn(Mono.just(UPDATED_ITEM));
+
+        StepVerifier.create(itemUpdater.update(ITEM_ID, NEW_VALUES, Collections.emptyList()))
+                .expectNext(UPDATED_ITEM)
+                .verifyComplete();
+        verify(itemCache).put(UPDATED_ITEM);
+    }
+
+    @Test
+    void concurrentUnconditionalUpdatesAreCoalescedWhenEnabled() {
+        itemUpdater = new ItemUpdater(itemRepository, itemCache, mock(ItemResponseCache.class),
+                new SimpleMeterRegistry(), true, Duration.ofMillis(100));
+        when(itemRepository.updateDescriptionAndPrice(ITEM_ID, "Rondo Ruut ST", 1999.99))
+                .thenReturn(Mono.just(UPDATED_ITEM));
+
+        StepVerifier first = StepVerifier.create(itemUpdater.update(ITEM_ID, CURRENT_ITEM, Collections.emptyList()))
+                .expectNext(UPDATED_ITEM).expectComplete().verifyLater();
+        StepVerifier second = StepVerifier.create(itemUpdater.update(ITEM_ID, NEW_VALUES, Collections.emptyList()))
+                .expectNext(UPDATED_ITEM).expectComplete().verifyLater();
+
+        first.verify();
+        second.verify();
+        verify(itemRepository).updateDescriptionAndPrice(anyString(), anyString(), anyDouble());
+        verify(itemCache).put(UPDATED_ITEM);
+    }
+
+    @Test
+    void updateWithMatchingETagComparesAndSets() {
+        when(itemRepository.updateDescriptionAndPriceIfUnchanged(CURRENT_ITEM, "Rondo Ruut ST", 1999.99))
+                .thenReturn(Mono.just(UPDATED_ITEM));
+
+        StepVerifier.create(itemUpdater.update(ITEM_ID, NEW_VALUES,
+                Collections.singletonList(ItemETags.of(CURRENT_ITEM))))
+                .expectNext(UPDATED_ITEM)
+                .verifyComplete();
+    }
+
+    @Test
+    void updateWithOutdatedETagFailsWithoutWriting() {
+        StepVerifier.create(itemUpdater.update(ITEM_ID, NEW_VALUES, Collections.singletonList("\"outdated\"")))
+                .verifyError(ItemModifiedException.class);
+        verify(itemRepository, never()).updateDescriptionAndPriceIfUnchanged(any(), anyString(), anyDouble());
+    }
+
+    @Test
+    void concurrentModificationBetweenCheckAndWriteFails() {
+        when(itemRepository.updateDescriptionAndPriceIfUnchanged(CURRENT_ITEM, "Rondo Ruut ST", 1999.99))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(itemUpdater.update(ITEM_ID, NEW_VALUES, Collections.singletonList("*")))
+                .verifyError(ItemModifiedException.class);
+    }
+
+    @Test
+    void conditionalUpdateOfNonExistingItemReturnsNothing() {
+        when(itemRepository.findById("NOTAVAILABLE001")).thenReturn(Mono.empty());
+        when(itemRepository.existsById("NOTAVAILABLE001")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(itemUpdater.update("NOTAVAILABLE001", NEW_VALUES, Collections.singletonList("*")))
+                .verifyComplete();
+    }
+}
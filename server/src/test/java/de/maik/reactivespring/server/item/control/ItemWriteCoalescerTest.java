@@ -0,0 +1,105 @@
+package de.maik.reactivespring.server.item.control;
+
+import de.maik.reactivespring.server.item.document.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against a write function recording what it is asked to write, with a window long enough
+ * for all updates of a test to arrive within it
+ */
+class ItemWriteCoalescerTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(200);
+    private static final String ITEM_ID = "ITMID001";
+
+    private List<Item> writes;
+    private SimpleMeterRegistry meterRegistry;
+    private ItemWriteCoalescer itemWriteCoalescer;
+
+    @BeforeEach
+    void setUp() {
+        writes = new CopyOnWriteArrayList<>();
+        meterRegistry = new SimpleMeterRegistry();
+        itemWriteCoalescer = new ItemWriteCoalescer(this::write, WINDOW, meterRegistry);
+    }
+
+    @Test
+    void burstOfUpdatesIsWrittenOnceWithTheLastValuesAndEveryCallerGetsTheResult() {
+        Item lastUpdate = priceUpdate(1799.99);
+        Item writtenItem = new Item(ITEM_ID, lastUpdate.getDescription(), lastUpdate.getPrice());
+        StepVerifier first = StepVerifier.create(itemWriteCoalescer.update(ITEM_ID, priceUpdate(1999.99)))
+                .expectNext(writtenItem).expectComplete().verifyLater();
+        StepVerifier second = StepVerifier.create(itemWriteCoalescer.update(ITEM_ID, priceUpdate(1899.99)))
+                .expectNext(writtenItem).expectComplete().verifyLater();
+        StepVerifier third = StepVerifier.create(itemWriteCoalescer.update(ITEM_ID, lastUpdate))
+                .expectNext(writtenItem).expectComplete().verifyLater();
+
+        first.verify();
+        second.verify();
+        third.verify();
+
+        assertThat(writes).containsExactly(lastUpdate);
+        assertThat(meterRegistry.counter(ItemWriteCoalescer.COALESCED).count()).isEqualTo(2);
+        assertThat(meterRegistry.timer(ItemWriteCoalescer.DELAY).count()).isEqualTo(3);
+    }
+
+    @Test
+    void updateAfterTheWindowClosedIsWrittenSeparately() {
+        StepVerifier.create(itemWriteCoalescer.update(ITEM_ID, priceUpdate(1999.99)))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(itemWriteCoalescer.update(ITEM_ID, priceUpdate(1899.99)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(writes).extracting(Item::getPrice).containsExactly(1999.99, 1899.99);
+        assertThat(meterRegistry.counter(ItemWriteCoalescer.COALESCED).count()).isZero();
+    }
+
+    @Test
+    void updatesOfDifferentItemsAreNotMerged() {
+        StepVerifier first = StepVerifier.create(itemWriteCoalescer.update(ITEM_ID, priceUpdate(1999.99)))
+                .expectNextCount(1).expectComplete().verifyLater();
+        StepVerifier second = StepVerifier.create(itemWriteCoalescer.update("ITMID002", priceUpdate(1899.99)))
+                .expectNextCount(1).expectComplete().verifyLater();
+
+        first.verify();
+        second.verify();
+
+        assertThat(writes).hasSize(2);
+    }
+
+    @Test
+    void failedWriteIsReportedToEveryCaller() {
+        itemWriteCoalescer = new ItemWriteCoalescer((itemId, newValues) -> Mono.error(new IllegalStateException()),
+                WINDOW, meterRegistry);
+        StepVerifier first = StepVerifier.create(itemWriteCoalescer.update(ITEM_ID, priceUpdate(1999.99)))
+                .expectError(IllegalStateException.class).verifyLater();
+        StepVerifier second = StepVerifier.create(itemWriteCoalescer.update(ITEM_ID, priceUpdate(1899.99)))
+                .expectError(IllegalStateException.class).verifyLater();
+
+        first.verify();
+        second.verify();
+    }
+
+    private Mono<Item> write(String itemId, Item newValues) {
+        return Mono.fromCallable(() -> {
+            writes.add(newValues);
+            return new Item(itemId, newValues.getDescription(), newValues.getPrice());
+        });
+    }
+
+    private static Item priceUpdate(double price) {
+        return new Item(null, "Rondo Ruut ST", price);
+    }
+}
@@ -0,0 +1,125 @@
+package de.maik.reactivespring.server.item.control;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final int BURST = 5;
+
+    private AtomicLong clock;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(42 * SECOND);
+        rateLimiter = new RateLimiter(10, BURST, 100, clock::get);
+    }
+
+    @Test
+    void burstIsAdmittedAtOnceAndFurtherRequestsHaveToWait() {
+        for (int i = 0; i < BURST; i++) {
+            assertThat(rateLimiter.tryAcquire("client")).isZero();
+        }
+
+        assertThat(rateLimiter.tryAcquire("client")).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void permitsAreRefilledAtConfiguredRate() {
+        for (int i = 0; i < BURST; i++) {
+            rateLimiter.tryAcquire("client");
+        }
+
+        clock.addAndGet(SECOND / 10);
+        assertThat(rateLimiter.tryAcquire("client")).isZero();
+        assertThat(rateLimiter.tryAcquire("client")).isPositive();
+
+        clock.addAndGet(SECOND);
+        for (int i = 0; i < BURST; i++) {
+            assertThat(rateLimiter.tryAcquire("client")).isZero();
+        }
+        assertThat(rateLimiter.tryAcquire("client")).isPositive();
+    }
+
+    @Test
+    void clientsHaveTheirOwnBuckets() {
+        for (int i = 0; i < BURST; i++) {
+            rateLimiter.tryAcquire("client");
+        }
+
+        assertThat(rateLimiter.tryAcquire("client")).isPositive();
+        assertThat(rateLimiter.tryAcquire("other client")).isZero();
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedBurst() throws InterruptedException {
+        int threads = 8;
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (rateLimiter.tryAcquire("client") == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(admitted.get()).isEqualTo(BURST);
+    }
+
+    @Test
+    void idleClientsAreForgottenOnceMaximumIsReached() {
+        rateLimiter = new RateLimiter(10, BURST, 2, clock::get);
+        rateLimiter.tryAcquire("first client");
+        rateLimiter.tryAcquire("second client");
+
+        clock.addAndGet(SECOND);
+        assertThat(rateLimiter.tryAcquire("third client")).isZero();
+
+        assertThat(rateLimiter.trackedClients()).isEqualTo(1);
+    }
+
+    @Test
+    void newClientsShareOneBucketWhileAllKnownClientsAreActive() {
+        rateLimiter = new RateLimiter(10, 1, 1, clock::get);
+        rateLimiter.tryAcquire("client");
+
+        assertThat(rateLimiter.tryAcquire("other client")).isZero();
+        assertThat(rateLimiter.tryAcquire("other client")).isPositive();
+        assertThat(rateLimiter.tryAcquire("yet another client")).isPositive();
+
+        assertThat(rateLimiter.trackedClients()).isEqualTo(1);
+        assertThat(rateLimiter.tryAcquire("client")).isPositive();
+    }
+
+    @Test
+    void nonPositiveLimitsAreRejected() {
+        assertThatThrownBy(() -> new RateLimiter(0, BURST, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RateLimiter(10, 0, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
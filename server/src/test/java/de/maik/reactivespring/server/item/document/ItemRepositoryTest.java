@@ -1,10 +1,17 @@
 package de.maik.reactivespring.server.item.document;
 
+import de.maik.reactivespring.server.item.initializers.ItemIndexInitializer;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -13,8 +20,11 @@ import reactor.test.StepVerifier;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @DataMongoTest
 @ExtendWith(SpringExtension.class)
+@Import(ItemIndexInitializer.class) // The text index is needed for full text search
 class ItemRepositoryTest {
 
     private static final String PREDEFINDED_ITEM_ID = "itm001";
@@ -63,6 +73,63 @@ class ItemRepositoryTest {
                 .verifyComplete();
     }
 
+    @Test
+    void keysetPagesCoverStringAndObjectIdsInIdOrder() {
+        List<Item> firstPage = itemRepository.findAllByOrderByIdAsc(PageRequest.of(0, 1)).collectList().block();
+        String lastStringId = firstPage.get(0).getId();
+        List<Item> remainingItems = itemRepository
+                .findByStringIdGreaterThan(lastStringId, PageRequest.of(0, items.size(), Sort.by("id")))
+                .collectList().block();
+        List<Item> itemsAfterFirstObjectId = itemRepository
+                .findByIdGreaterThanOrderByIdAsc(new ObjectId(remainingItems.get(0).getId()), PageRequest.of(0, items.size()))
+                .collectList().block();
+
+        // String ids sort before ObjectIds, the predefined id is the only string id
+        assertThat(lastStringId).isEqualTo(PREDEFINDED_ITEM_ID);
+        assertThat(remainingItems).hasSize(items.size() - 1);
+        assertThat(itemsAfterFirstObjectId).hasSize(items.size() - 2);
+    }
+
+    @Test
+    void findsItemsInInclusivePriceRangeInPriceOrder() {
+        StepVerifier.create(itemRepository.findByPriceBetweenOrderByPriceAscIdAsc(Range.closed(2.99, 4999.00))
+                .map(Item::getPrice))
+                .expectNext(2.99, 699.99, 2399.99, 4999.00)
+                .verifyComplete();
+    }
+
+    @Test
+    void keysetPagesByPriceContinueAfterLastPriceAndId() {
+        PageRequest pageRequest = PageRequest.of(0, items.size(), Sort.by("price", "id"));
+        Item itemAt699 = itemRepository.findByPriceBetweenOrderByPriceAscIdAsc(Range.closed(699.99, 699.99))
+                .blockFirst();
+
+        StepVerifier.create(itemRepository.findByPriceAfterObjectId(699.99, new ObjectId(itemAt699.getId()), 5000.00,
+                pageRequest).map(Item::getPrice))
+                .expectNext(2399.99, 4999.00)
+                .verifyComplete();
+        StepVerifier.create(itemRepository.findByPriceAfterStringId(1.99, PREDEFINDED_ITEM_ID, Double.POSITIVE_INFINITY,
+                pageRequest).map(Item::getPrice))
+                .expectNext(2.99, 699.99, 2399.99, 4999.00, 7249.99)
+                .verifyComplete();
+    }
+
+    @Test
+    void returnsMatchingItemsWhenSearchingByDescriptionPrefix() {
+        StepVerifier.create(itemRepository.findByDescriptionStartingWith("S"))
+                .expectSubscription()
+                .expectNextCount(4)
+                .verifyComplete();
+    }
+
+    @Test
+    void returnsMatchingItemsWhenSearchingByDescriptionText() {
+        StepVerifier.create(itemRepository.findAllBy(TextCriteria.forDefaultLanguage().matching("item")))
+                .expectSubscription()
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
     @Test
     void returnsSavedItem() {
         Mono<Item> savedItem = itemRepository.save(new Item(null, "A new item", 42.01));
@@ -90,6 +157,35 @@ class ItemRepositoryTest {
                 .verifyComplete();
     }
 
+    @Test
+    void atomicallyUpdatesDescriptionAndPriceAndReturnsUpdatedItem() {
+        StepVerifier.create(itemRepository.updateDescriptionAndPrice(PREDEFINDED_ITEM_ID, "Updated item", 42.00))
+                .expectSubscription()
+                .expectNextMatches(item -> item.getId().equals(PREDEFINDED_ITEM_ID) &&
+                        item.getDescription().equals("Updated item") &&
+                        item.getPrice() == 42.00)
+                .verifyComplete();
+    }
+
+    @Test
+    void atomicUpdateOfNonExistingItemReturnsNothing() {
+        StepVerifier.create(itemRepository.updateDescriptionAndPrice("NOTAVAILABLE001", "Updated item", 42.00))
+                .expectSubscription()
+                .verifyComplete();
+
+        StepVerifier.create(itemRepository.findById("NOTAVAILABLE001"))
+                .expectSubscription()
+                .verifyComplete();
+    }
+
+    @Test
+    void loadsOnlyRequestedFields() {
+        StepVerifier.create(itemRepository.findAllWithFields(Arrays.asList("price")))
+                .expectSubscription()
+                .thenConsumeWhile(item -> item.getId() == null && item.getDescription() == null && item.getPrice() > 0)
+                .verifyComplete();
+    }
+
     @Test
     void findsAndDeletedItemById() {
         Mono<Void> deletedItem = itemRepository.findById(PREDEFINDED_ITEM_ID)
@@ -0,0 +1,44 @@
+package de.maik.reactivespring.server.item.initializers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemDataHealthIndicatorTest {
+
+    private ItemDataInitializer itemDataInitializer;
+    private ItemDataHealthIndicator itemDataHealthIndicator;
+
+    @BeforeEach
+    void setUp() {
+        itemDataInitializer = mock(ItemDataInitializer.class);
+        when(itemDataInitializer.getSyntheticItems()).thenReturn(1000L);
+        itemDataHealthIndicator = new ItemDataHealthIndicator(itemDataInitializer);
+    }
+
+    @Test
+    void outOfServiceWhileSeeding() {
+        when(itemDataInitializer.getInsertedSyntheticItems()).thenReturn(400L);
+
+        assertThat(itemDataHealthIndicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(itemDataHealthIndicator.health().getDetails()).containsEntry("insertedSyntheticItems", 400L);
+    }
+
+    @Test
+    void upOnceSeedingCompleted() {
+        when(itemDataInitializer.isCompleted()).thenReturn(true);
+
+        assertThat(itemDataHealthIndicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void downIfSeedingFailed() {
+        when(itemDataInitializer.getFailure()).thenReturn(new IllegalStateException("Database unavailable"));
+
+        assertThat(itemDataHealthIndicator.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+}
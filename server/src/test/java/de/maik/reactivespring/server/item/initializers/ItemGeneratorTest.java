@@ -0,0 +1,28 @@
+package de.maik.reactivespring.server.item.initializers;
+
+import de.maik.reactivespring.server.item.document.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemGeneratorTest {
+
+    @Test
+    void batchOnlyDependsOnSeedAndIndex() {
+        assertThat(ItemGenerator.batch(42, 7, 100)).isEqualTo(ItemGenerator.batch(42, 7, 100));
+        assertThat(ItemGenerator.batch(42, 7, 100)).isNotEqualTo(ItemGenerator.batch(42, 8, 100));
+    }
+
+    @Test
+    void pricesAreSpreadAroundRealisticMedian() {
+        List<Item> items = ItemGenerator.batch(42, 0, 10_000);
+
+        double[] prices = items.stream().mapToDouble(Item::getPrice).sorted().toArray();
+        assertThat(prices[0]).isPositive();
+        assertThat(prices[prices.length / 2]).isBetween(2000.0, 3000.0);
+        assertThat(prices[prices.length - 1]).isGreaterThan(10_000.0);
+        assertThat(items).allSatisfy(item -> assertThat(item.getId()).isNull());
+    }
+}
@@ -0,0 +1,46 @@
+package de.maik.reactivespring.server.item.initializers;
+
+import de.maik.reactivespring.server.item.document.Item;
+import de.maik.reactivespring.server.item.document.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataMongoTest
+@ExtendWith(SpringExtension.class)
+class ItemSeederTest {
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ReactiveMongoOperations mongoOperations;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository.deleteAll().block();
+    }
+
+    @Test
+    void insertsRequestedNumberOfItemsInPartialLastBatch() {
+        ItemSeeder itemSeeder = new ItemSeeder(mongoOperations, 1000, 4, 42, Duration.ofSeconds(5));
+
+        StepVerifier.create(itemSeeder.seed(2500))
+                .expectNext(2500L)
+                .verifyComplete();
+
+        assertThat(itemSeeder.getInsertedItems()).isEqualTo(2500);
+        StepVerifier.create(itemRepository.findAll().map(Item::getId).distinct().count())
+                .expectNext(2500L)
+                .verifyComplete();
+    }
+}